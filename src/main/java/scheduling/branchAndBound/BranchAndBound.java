@@ -0,0 +1,464 @@
+package scheduling.branchAndBound;
+
+import java.util.concurrent.TimeUnit;
+
+import scheduling.common.Config;
+import scheduling.common.CostsLowerBound;
+import scheduling.common.ImprovementEngine;
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
+import scheduling.common.SolutionCostMapper;
+import scheduling.common.ThreadsController;
+
+/**
+ * Searches exhaustively for the best schedule which keeps the rules the heuristic searches work under: the days fixed
+ * in the given solution keep their employee, no employee works more days than in total, nobody deviates more from the
+ * wished number of free days than in the given solution and there are not more days without employee. The days are
+ * assigned in order of the month, so the costs of a partial schedule are final for all days before the current one
+ * and can be added up while descending. A branch is cut as soon as these costs, together with a lower bound of the
+ * costs of the remaining days, reach the best schedule found so far, which starts as the given solution. The bound
+ * takes the cheapest way of every employee through its remaining fixed days and the mandatory block shifts on fixed
+ * days which cannot be kept. Fixed days and the remaining days of the employees are propagated as bitsets.
+ * <p>
+ * The search gives up after its time limit, or after a limit of nodes in the seeded mode so that its result does not
+ * depend on timing, and when the program is stopped. It returns the best schedule found until then.
+ */
+public class BranchAndBound implements ImprovementEngine {
+	private static final int NODES_BETWEEN_CHECKS = 1024;
+	private static final long NO_LIMIT = Long.MAX_VALUE;
+
+	private final ThreadsController threadsController;
+	private final ProblemInstance problemInstance;
+	private final SolutionCostMapper solutionCostMapper;
+	private final CostsLowerBound costsLowerBound;
+	private final int lengthOfMonth;
+	private final long timeLimit;
+	private final long nodeLimit;
+	private final int[] fixedEmployeeOnDay;
+	private final long[] fixedDaysOfEmployee;
+	private final int[] maxNumberOfDays;
+	private final int[] minNumberOfFreeDays;
+	private final int[] maxNumberOfFreeDays;
+	private final long[] availableFreeDays;
+	private final long[] availableDays;
+	private final double[][][] costsFromDayOfEmployee;
+	private final double[] costsOfMandatoryBlockShiftsFromDay;
+	private final int[] employeesWithFixedDays;
+	private final double[][] costsOfEmployeesFromDay;
+	private int numberOfEmployeesWithFixedDays;
+	private int maxNumberOfDaysWithoutEmployee;
+
+	private final int[] employeeOnDay;
+	private final int[] numberOfDays;
+	private final int[] numberOfFreeDays;
+	private final int[] lastDay;
+	private final int[] consecutiveShifts;
+	private final int[] lengthOfLastBlockShift;
+	private final int[] lastDayBeforeDay;
+	private final int[] consecutiveShiftsBeforeDay;
+	private final int[] lengthOfLastBlockShiftBeforeDay;
+	private long daysWithoutEmployee;
+
+	private final int[][] candidatesOfDay;
+	private final double[][] costsOfCandidatesOfDay;
+	private final int[] bestEmployeeOnDay;
+	private double bestCosts;
+	private long numberOfNodes;
+	private long deadline;
+	private boolean isAborted;
+
+	public BranchAndBound(ThreadsController threadsController) {
+		this(threadsController,
+				Config.IS_SEEDED ? NO_LIMIT : TimeUnit.SECONDS.toNanos(Config.EXACT_SEARCH_TIME_LIMIT),
+				Config.IS_SEEDED ? Config.EXACT_SEARCH_NODE_LIMIT : NO_LIMIT);
+	}
+
+	/**
+	 * Creates a search which gives up after the given number of nanoseconds or of nodes, whichever comes first.
+	 */
+	public BranchAndBound(ThreadsController threadsController, long timeLimit, long nodeLimit) {
+		this.threadsController = threadsController;
+		this.problemInstance = threadsController.getProblemInstance();
+		this.solutionCostMapper = new SolutionCostMapper(problemInstance);
+		this.costsLowerBound = new CostsLowerBound(problemInstance);
+		this.lengthOfMonth = problemInstance.getLengthOfMonth();
+		this.timeLimit = timeLimit;
+		this.nodeLimit = nodeLimit;
+		this.fixedEmployeeOnDay = new int[lengthOfMonth];
+		this.fixedDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+		this.maxNumberOfDays = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.minNumberOfFreeDays = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.maxNumberOfFreeDays = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.availableFreeDays = new long[Config.NUMBER_OF_EMPLOYEES];
+		this.availableDays = new long[Config.NUMBER_OF_EMPLOYEES];
+		this.costsFromDayOfEmployee = new double[Config.NUMBER_OF_EMPLOYEES][][];
+		this.costsOfMandatoryBlockShiftsFromDay = new double[lengthOfMonth + 1];
+		this.employeesWithFixedDays = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.costsOfEmployeesFromDay = new double[lengthOfMonth][Config.NUMBER_OF_EMPLOYEES];
+		this.employeeOnDay = new int[lengthOfMonth];
+		this.numberOfDays = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.numberOfFreeDays = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.lastDay = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.consecutiveShifts = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.lengthOfLastBlockShift = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.lastDayBeforeDay = new int[lengthOfMonth];
+		this.consecutiveShiftsBeforeDay = new int[lengthOfMonth];
+		this.lengthOfLastBlockShiftBeforeDay = new int[lengthOfMonth];
+		this.candidatesOfDay = new int[lengthOfMonth][Config.NUMBER_OF_EMPLOYEES + 1];
+		this.costsOfCandidatesOfDay = new double[lengthOfMonth][Config.NUMBER_OF_EMPLOYEES + 1];
+		this.bestEmployeeOnDay = new int[lengthOfMonth];
+	}
+
+	/**
+	 * Returns the best schedule under the rules of the given solution, or the best one found within the time limit.
+	 * If no better schedule has been found, the given solution is returned.
+	 */
+	@Override
+	public Solution run(Solution solution) {
+		initialize(solution);
+		if (bestCosts > threadsController.getLowerBoundOfCosts()) {
+			search(0, Config.OPTIMAL_SOLUTION);
+		}
+
+		Solution bestSolution = createSolution();
+		return bestSolution.getCosts() < solution.getCosts() ? bestSolution : solution;
+	}
+
+	/**
+	 * Returns whether the last run has searched all schedules, so that its result is optimal under its rules.
+	 */
+	public boolean isFinished() {
+		return !isAborted;
+	}
+
+	@Override
+	public long getNumberOfEvaluations() {
+		return numberOfNodes;
+	}
+
+	private void initialize(Solution solution) {
+		bestCosts = solution.getCosts();
+		numberOfNodes = 0;
+		isAborted = false;
+		deadline = timeLimit == NO_LIMIT ? NO_LIMIT : System.nanoTime() + timeLimit;
+		daysWithoutEmployee = 0;
+		maxNumberOfDaysWithoutEmployee = Long.bitCount(solution.getDaysWithoutEmployee());
+
+		for (int day = 0; day < lengthOfMonth; day++) {
+			int employee = solution.getEmployeeForDay(day);
+			bestEmployeeOnDay[day] = employee;
+			boolean isFixed = employee != Config.MISSING_EMPLOYEE
+					&& (problemInstance.getFixedDaysOfEmployee(employee) & (1L << day)) != 0;
+			fixedEmployeeOnDay[day] = isFixed ? employee : Config.MISSING_EMPLOYEE;
+		}
+
+		long allFixedDays = 0;
+		numberOfEmployeesWithFixedDays = 0;
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			fixedDaysOfEmployee[employee] = problemInstance.getFixedDaysOfEmployee(employee)
+					& solution.getWorkingDaysOfEmployee(employee);
+			allFixedDays |= fixedDaysOfEmployee[employee];
+			if (fixedDaysOfEmployee[employee] != 0) {
+				employeesWithFixedDays[numberOfEmployeesWithFixedDays++] = employee;
+			}
+		}
+
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			int freeDays = solution.getNumberOfFreeDaysForEmployee(employee);
+			// Every number of free days between the given one and its mirror at the wished one deviates no more
+			double mirroredFreeDays = 2 * problemInstance.getDaysToWorkAtFreeDayForEmployee(employee) - freeDays;
+			maxNumberOfDays[employee] = Math.max(problemInstance.getDaysToWorkInTotalForEmployee(employee),
+					Long.bitCount(solution.getWorkingDaysOfEmployee(employee)));
+			minNumberOfFreeDays[employee] = Math.min(freeDays, (int) Math.ceil(mirroredFreeDays));
+			maxNumberOfFreeDays[employee] = Math.max(freeDays, (int) Math.floor(mirroredFreeDays));
+			long availableUnfixedDays = problemInstance.getAvailableDaysOfEmployee(employee)
+					& ~(allFixedDays & ~fixedDaysOfEmployee[employee]);
+			availableDays[employee] = availableUnfixedDays | fixedDaysOfEmployee[employee];
+			availableFreeDays[employee] = problemInstance.getFreeDays() & availableUnfixedDays;
+			costsFromDayOfEmployee[employee] = costsLowerBound.calculateFromDayForEmployee(employee,
+					fixedDaysOfEmployee[employee], availableDays[employee]);
+
+			numberOfDays[employee] = 0;
+			numberOfFreeDays[employee] = 0;
+			lastDay[employee] = Config.MISSING_EMPLOYEE;
+			consecutiveShifts[employee] = 1;
+			lengthOfLastBlockShift[employee] = 1;
+		}
+
+		costsOfMandatoryBlockShiftsFromDay[lengthOfMonth] = 0;
+		for (int day = lengthOfMonth - 1; day >= 0; day--) {
+			costsOfMandatoryBlockShiftsFromDay[day] = costsOfMandatoryBlockShiftsFromDay[day + 1]
+					+ calculateUnavoidableCostsOfMandatoryBlockShift(day, fixedEmployeeOnDay[day]);
+		}
+	}
+
+	/**
+	 * Returns the penalty of the mandatory block shift on the day if the given employee cannot work the next day,
+	 * because the employee is not available or the next day is fixed for another employee.
+	 */
+	private double calculateUnavoidableCostsOfMandatoryBlockShift(int day, int employee) {
+		if (employee == Config.MISSING_EMPLOYEE || day == lengthOfMonth - 1
+				|| (availableDays[employee] & (1L << (day + 1))) != 0) {
+			return 0;
+		}
+		return solutionCostMapper.calculatePenaltyForMandatoryBlockShift(day, employee, Config.MISSING_EMPLOYEE);
+	}
+
+	/**
+	 * Returns a lower bound of the costs which the days from the given one on add to the partial schedule before it.
+	 * Every employee has to go on to its remaining fixed days: the first of its next shifts is costed from its actual
+	 * last shift, and the rest is the cheapest way through the fixed days as computed by {@link CostsLowerBound}. The
+	 * bound of every employee is kept, so that only the one of the employee assigned to the day has to be updated.
+	 */
+	private double calculateCostsFromDay(int day) {
+		double[] costsOfEmployees = costsOfEmployeesFromDay[day];
+		double costs = costsOfMandatoryBlockShiftsFromDay[day + 1];
+		for (int index = 0; index < numberOfEmployeesWithFixedDays; index++) {
+			int employee = employeesWithFixedDays[index];
+			costsOfEmployees[employee] = calculateCostsFromDayForEmployee(day, employee);
+			costs += costsOfEmployees[employee];
+		}
+		return costs;
+	}
+
+	/**
+	 * Finds the cheapest next shift of the employee from the given day up to its next fixed day, including the costs
+	 * from this shift on. If the day after the last shift is not assigned yet, it is open whether the last block shift
+	 * ends before a day without employee, so the shorter of both possible last block shifts is taken.
+	 */
+	private double calculateCostsFromDayForEmployee(int day, int employee) {
+		long laterFixedDays = fixedDaysOfEmployee[employee] & -(1L << day);
+		if (laterFixedDays == 0) {
+			return 0;
+		}
+
+		double[][] costsFromDay = costsFromDayOfEmployee[employee];
+		int nextFixedDay = Long.numberOfTrailingZeros(laterFixedDays);
+		int lastDayOfEmployee = lastDay[employee];
+		int lengthOfLastBlockShiftAfterGap = lastDayOfEmployee == day - 1
+				? Math.min(consecutiveShifts[employee], lengthOfLastBlockShift[employee])
+				: lastDayOfEmployee == Config.MISSING_EMPLOYEE ? 1 : getLengthOfLastBlockShiftAfterGap(employee);
+
+		double costs = Double.MAX_VALUE;
+		long nextDays = availableDays[employee] & -(1L << day) & ((1L << (nextFixedDay + 1)) - 1);
+		for (long remainingDays = nextDays; remainingDays != 0; remainingDays &= remainingDays - 1) {
+			int nextDay = Long.numberOfTrailingZeros(remainingDays);
+			if (lastDayOfEmployee == Config.MISSING_EMPLOYEE) {
+				costs = Math.min(costs, costsFromDay[nextDay][1]);
+			} else if (nextDay - lastDayOfEmployee == 1) {
+				int nextConsecutiveShifts = consecutiveShifts[employee] + 1;
+				costs = Math.min(costs, costsFromDay[nextDay][nextConsecutiveShifts] + solutionCostMapper
+						.calculateCostsOfShift(employee, 1, nextConsecutiveShifts, lengthOfLastBlockShift[employee]));
+			} else {
+				costs = Math.min(costs, costsFromDay[nextDay][1] + solutionCostMapper.calculateCostsOfShift(employee,
+						nextDay - lastDayOfEmployee, 1, lengthOfLastBlockShiftAfterGap));
+			}
+		}
+		return costs;
+	}
+
+	/**
+	 * Checks whether the partial schedule up to the given assigned day can still become cheaper than the best schedule.
+	 * The bound of the later days is the one of the day without the assigned employee, which can only be lower for
+	 * the other employees, and the updated bound of the assigned employee.
+	 */
+	private boolean canBeatBestCosts(int day, double costs, double costsFromDay) {
+		int employee = employeeOnDay[day];
+		double lowerBound = costs + costsFromDay + calculateUnavoidableCostsOfMandatoryBlockShift(day, employee);
+		if (employee != Config.MISSING_EMPLOYEE && fixedDaysOfEmployee[employee] != 0) {
+			lowerBound += calculateCostsFromDayForEmployee(day + 1, employee) - costsOfEmployeesFromDay[day][employee];
+		}
+		return lowerBound < bestCosts;
+	}
+
+	private void search(int day, double costs) {
+		if (isAborted || isLimitReached()) {
+			return;
+		}
+		if (day == lengthOfMonth) {
+			bestCosts = costs;
+			System.arraycopy(employeeOnDay, 0, bestEmployeeOnDay, 0, lengthOfMonth);
+			return;
+		}
+
+		int[] candidates = candidatesOfDay[day];
+		double[] costsOfCandidates = costsOfCandidatesOfDay[day];
+		int numberOfCandidates = collectCandidates(day, candidates, costsOfCandidates);
+		double costsFromDay = calculateCostsFromDay(day);
+
+		for (int index = 0; index < numberOfCandidates; index++) {
+			double costsWithCandidate = costs + costsOfCandidates[index];
+			if (costsWithCandidate >= bestCosts || bestCosts <= threadsController.getLowerBoundOfCosts()) {
+				return;
+			}
+
+			int employee = candidates[index];
+			assign(day, employee);
+			if (canFreeDaysBeReached(day) && canBeatBestCosts(day, costsWithCandidate, costsFromDay)) {
+				search(day + 1, costsWithCandidate);
+			}
+			unassign(day, employee);
+		}
+	}
+
+	/**
+	 * Collects the employees who can work on the day, including a missing employee, sorted by the costs they add. The
+	 * later fixed days of an employee are reserved, so that they never exceed the days or free days of the employee.
+	 */
+	private int collectCandidates(int day, int[] candidates, double[] costsOfCandidates) {
+		int numberOfCandidates = 0;
+		int fixedEmployee = fixedEmployeeOnDay[day];
+
+		if (fixedEmployee != Config.MISSING_EMPLOYEE) {
+			return addCandidate(day, fixedEmployee, candidates, costsOfCandidates, numberOfCandidates);
+		}
+		if (Long.bitCount(daysWithoutEmployee) < maxNumberOfDaysWithoutEmployee) {
+			numberOfCandidates = addCandidate(day, Config.MISSING_EMPLOYEE, candidates, costsOfCandidates,
+					numberOfCandidates);
+		}
+
+		long laterDays = -(1L << (day + 1));
+		long laterFreeDays = problemInstance.getFreeDays() & laterDays;
+		boolean isFreeDay = problemInstance.isFreeDay(day);
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			boolean canWork = problemInstance.isEmployeeAvailableOnDay(employee, day)
+					&& numberOfDays[employee] + 1 + Long.bitCount(fixedDaysOfEmployee[employee] & laterDays)
+							<= maxNumberOfDays[employee]
+					&& (!isFreeDay || numberOfFreeDays[employee] + 1
+							+ Long.bitCount(fixedDaysOfEmployee[employee] & laterFreeDays)
+							<= maxNumberOfFreeDays[employee]);
+			if (canWork) {
+				numberOfCandidates = addCandidate(day, employee, candidates, costsOfCandidates, numberOfCandidates);
+			}
+		}
+		return numberOfCandidates;
+	}
+
+	private int addCandidate(int day, int employee, int[] candidates, double[] costsOfCandidates,
+			int numberOfCandidates) {
+		double costs = getCostsOfShift(day, employee);
+		if (day > 0) {
+			costs += solutionCostMapper.calculatePenaltyForMandatoryBlockShift(day - 1, employeeOnDay[day - 1],
+					employee);
+		}
+
+		int index = numberOfCandidates;
+		while (index > 0
+				&& isBetterCandidate(day, employee, costs, candidates[index - 1], costsOfCandidates[index - 1])) {
+			candidates[index] = candidates[index - 1];
+			costsOfCandidates[index] = costsOfCandidates[index - 1];
+			index--;
+		}
+		candidates[index] = employee;
+		costsOfCandidates[index] = costs;
+		return numberOfCandidates + 1;
+	}
+
+	/**
+	 * Orders the candidates by their costs and prefers the employee of the best schedule among equal ones, so that
+	 * the best schedule is found again first.
+	 */
+	private boolean isBetterCandidate(int day, int employee, double costs, int otherEmployee, double otherCosts) {
+		return costs < otherCosts || (costs == otherCosts && employee == bestEmployeeOnDay[day]
+				&& otherEmployee != bestEmployeeOnDay[day]);
+	}
+
+	private double getCostsOfShift(int day, int employee) {
+		if (employee == Config.MISSING_EMPLOYEE || lastDay[employee] == Config.MISSING_EMPLOYEE) {
+			return 0;
+		}
+		int daysSinceLastShift = day - lastDay[employee];
+		if (daysSinceLastShift == 1) {
+			return solutionCostMapper.calculateCostsOfShift(employee, daysSinceLastShift,
+					consecutiveShifts[employee] + 1, lengthOfLastBlockShift[employee]);
+		}
+		return solutionCostMapper.calculateCostsOfShift(employee, daysSinceLastShift, 1,
+				getLengthOfLastBlockShiftAfterGap(employee));
+	}
+
+	/**
+	 * A block shift followed by a day without employee is not taken into account as the last block shift, like in
+	 * {@link SolutionCostMapper#calculateCostsOfEmployee(int, long, long)}.
+	 */
+	private int getLengthOfLastBlockShiftAfterGap(int employee) {
+		return (daysWithoutEmployee & (1L << (lastDay[employee] + 1))) == 0 ? consecutiveShifts[employee]
+				: lengthOfLastBlockShift[employee];
+	}
+
+	private void assign(int day, int employee) {
+		employeeOnDay[day] = employee;
+		if (employee == Config.MISSING_EMPLOYEE) {
+			daysWithoutEmployee |= 1L << day;
+			return;
+		}
+
+		lastDayBeforeDay[day] = lastDay[employee];
+		consecutiveShiftsBeforeDay[day] = consecutiveShifts[employee];
+		lengthOfLastBlockShiftBeforeDay[day] = lengthOfLastBlockShift[employee];
+		if (lastDay[employee] != Config.MISSING_EMPLOYEE) {
+			if (day - lastDay[employee] == 1) {
+				consecutiveShifts[employee]++;
+			} else {
+				lengthOfLastBlockShift[employee] = getLengthOfLastBlockShiftAfterGap(employee);
+				consecutiveShifts[employee] = 1;
+			}
+		}
+		lastDay[employee] = day;
+		numberOfDays[employee]++;
+		numberOfFreeDays[employee] += problemInstance.isFreeDay(day) ? 1 : 0;
+	}
+
+	private void unassign(int day, int employee) {
+		if (employee == Config.MISSING_EMPLOYEE) {
+			daysWithoutEmployee &= ~(1L << day);
+			return;
+		}
+
+		lastDay[employee] = lastDayBeforeDay[day];
+		consecutiveShifts[employee] = consecutiveShiftsBeforeDay[day];
+		lengthOfLastBlockShift[employee] = lengthOfLastBlockShiftBeforeDay[day];
+		numberOfDays[employee]--;
+		numberOfFreeDays[employee] -= problemInstance.isFreeDay(day) ? 1 : 0;
+	}
+
+	/**
+	 * Checks whether every employee can still reach the least number of free days, given the free days left after
+	 * the assigned day.
+	 */
+	private boolean canFreeDaysBeReached(int day) {
+		if (!problemInstance.isFreeDay(day)) {
+			return true;
+		}
+		long laterDays = -(1L << (day + 1));
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			int missingFreeDays = minNumberOfFreeDays[employee] - numberOfFreeDays[employee];
+			if (missingFreeDays > 0 && Long.bitCount(availableFreeDays[employee] & laterDays) < missingFreeDays) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isLimitReached() {
+		if (++numberOfNodes % NODES_BETWEEN_CHECKS == 0 && (numberOfNodes >= nodeLimit || isTimeUp()
+				|| threadsController.isStoppedByUser())) {
+			isAborted = true;
+		}
+		return isAborted;
+	}
+
+	private boolean isTimeUp() {
+		return deadline != NO_LIMIT && System.nanoTime() - deadline >= 0;
+	}
+
+	private Solution createSolution() {
+		int[] solution = bestEmployeeOnDay.clone();
+		int[] numberOfFreeDaysForEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
+		for (int day = 0; day < lengthOfMonth; day++) {
+			if (problemInstance.isFreeDay(day) && solution[day] != Config.MISSING_EMPLOYEE) {
+				numberOfFreeDaysForEmployee[solution[day]]++;
+			}
+		}
+		return new Solution(solution, numberOfFreeDaysForEmployee, problemInstance, solutionCostMapper);
+	}
+}
@@ -0,0 +1,31 @@
+package scheduling.common;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the best solution of all searches. A solution is taken by compare-and-set if its costs are lower, so searches
+ * never wait for each other. Offered solutions must not be changed anymore.
+ */
+public class BestSolutionHolder {
+	private final AtomicReference<Solution> bestSolution = new AtomicReference<>();
+
+	/**
+	 * Returns whether the solution has become the best solution.
+	 */
+	public boolean offer(Solution solution) {
+		double costs = solution.getCosts();
+		Solution currentBestSolution = bestSolution.get();
+
+		while (currentBestSolution == null || costs < currentBestSolution.getCosts()) {
+			if (bestSolution.compareAndSet(currentBestSolution, solution)) {
+				return true;
+			}
+			currentBestSolution = bestSolution.get();
+		}
+		return false;
+	}
+
+	public Solution get() {
+		return bestSolution.get();
+	}
+}
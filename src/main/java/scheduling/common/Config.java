@@ -8,7 +8,7 @@ public class Config {
 	public static final double MAX_INITIAL_WINDOW_HEIGHT = 1200;
 	public static final double MAX_INITIAL_WINDOW_WIDTH = 1600;
 	public static final int NUMBER_OF_EMPLOYEES = 30;
-	public static final int NUMBER_OF_PARALLEL_THREADS = 50;
+	public static final int NUMBER_OF_PARALLEL_THREADS = Math.max(1, getIntSetting("numberOfSearches", 50));
 	public static final int ROWS_OF_HEADER = 5;
 	public static final int LAST_ROW_OF_SCHEDULE = ROWS_OF_HEADER + NUMBER_OF_EMPLOYEES;
 	public static final String WORK_DAY = "A";
@@ -18,9 +18,9 @@ public class Config {
 	public static final int WEIGHT_FOR_NORMAL_DAY = 1;
 	public static final int WEIGHT_FOR_FIXED_DAY = 1000;
 	public static final int WEIGHT_FOR_FREE_DAY = 32;
-	public static final int MAX_RETRIES_OF_TABU_SEARCH = 40000;
-	public static final int TABU_SEARCH_NEIGHBORHOOD_SAMPLE_SIZE = 50;
-	public static final int LENGTH_OF_TABU_LIST = 15;
+	public static final int MAX_RETRIES_OF_TABU_SEARCH = getIntSetting("maxRetriesOfTabuSearch", 40000);
+	public static final int TABU_SEARCH_NEIGHBORHOOD_SAMPLE_SIZE = getIntSetting("neighborhoodSampleSize", 50);
+	public static final int LENGTH_OF_TABU_LIST = getIntSetting("tabuTenure", 15);
 	public static final int MAX_RETRIES_OF_SOLUTION = 4000;
 	public static final int LENGTH_OF_SOLUTION_LIST = 15;
 	public static final int DEFAULT_MAX_LENGTH_OF_SHIFT = 31;
@@ -31,7 +31,65 @@ public class Config {
 	public static final int UNKNOWN_SOLUTION_COSTS = -1;
 	public static final String QUIT = ":q";
 	public static final String VERSION = "--version";
+	public static final String SETTING_PREFIX = "scheduling.";
+	public static final boolean ARRAY_BASED_MATCHING = getBooleanSetting("arrayBasedMatching", true);
+	public static final boolean DIVERSIFY_INITIAL_SOLUTIONS = getBooleanSetting("diversifyInitialSolutions", false);
+	public static final boolean STREAMING_READER = getBooleanSetting("streamingReader", false);
+	public static final boolean PATCHING_WRITER = getBooleanSetting("patchingWriter", false);
+	public static final boolean PROBLEM_INSTANCE_CACHE = getBooleanSetting("problemInstanceCache", false);
+	public static final boolean REACTIVE_TABU_SEARCH = getBooleanSetting("reactiveTabuSearch", false);
+	public static final boolean EXTENDED_MOVES = getBooleanSetting("extendedMoves", false);
+	public static final boolean PARALLEL_NEIGHBORHOOD = getBooleanSetting("parallelNeighborhood", false);
+	public static final boolean ISLAND_MODEL = getBooleanSetting("islandModel", false);
+	public static final int MIGRATION_INTERVAL = Math.max(1, getIntSetting("migrationInterval", 2000));
+	public static final String ENGINE = getStringSetting("engine", "tabuSearch");
+	public static final int MAX_STEPS_WITHOUT_IMPROVEMENT = getIntSetting("maxStepsWithoutImprovement", 200000);
+	public static final int LATE_ACCEPTANCE_LENGTH = Math.max(1, getIntSetting("lateAcceptanceLength", 1000));
+	public static final int SAMPLES_FOR_INITIAL_TEMPERATURE = 100;
+	public static final double INITIAL_ACCEPTANCE_PROBABILITY = 0.5;
+	public static final double FINAL_TEMPERATURE_RATIO = 0.001;
+	public static final int COOLING_CYCLES_PER_SEARCH = 4;
+	public static final int TIME_LIMIT = getIntSetting("timeLimit", 0);
+	public static final double TARGET_COSTS = getDoubleSetting("targetCosts", OPTIMAL_SOLUTION);
+	public static final boolean RACING = getBooleanSetting("racing", false);
+	public static final int RACING_ROUNDS = Math.max(1, getIntSetting("racingRounds", 8));
+	public static final double RACING_ELIMINATED_SHARE = 0.5;
+	public static final boolean IS_SEEDED = isSettingPresent("seed");
+	public static final long SEED = getLongSetting("seed", 0);
+	public static final boolean LOWER_BOUND = getBooleanSetting("lowerBound", false);
+	public static final boolean EXACT_SEARCH = getBooleanSetting("exactSearch", false);
+	public static final int EXACT_SEARCH_TIME_LIMIT = getIntSetting("exactSearchTimeLimit", 10);
+	public static final long EXACT_SEARCH_NODE_LIMIT = getLongSetting("exactSearchNodeLimit", 100_000_000L);
+	public static final boolean WINDOW_REPAIR = getBooleanSetting("windowRepair", false);
+	public static final int REPAIR_INTERVAL = Math.max(1, getIntSetting("repairInterval", 100));
+	public static final int LENGTH_OF_REPAIR_WINDOW = getIntSetting("lengthOfRepairWindow", 7);
+	public static final int EMPLOYEES_PER_REPAIR = 2;
+	public static final int ROUNDS_OF_REPAIR = 3;
 
 	private Config() {
 	}
+
+	private static boolean getBooleanSetting(String name, boolean defaultValue) {
+		return Boolean.parseBoolean(System.getProperty(SETTING_PREFIX + name, String.valueOf(defaultValue)));
+	}
+
+	private static int getIntSetting(String name, int defaultValue) {
+		return Integer.getInteger(SETTING_PREFIX + name, defaultValue);
+	}
+
+	private static long getLongSetting(String name, long defaultValue) {
+		return Long.getLong(SETTING_PREFIX + name, defaultValue);
+	}
+
+	private static boolean isSettingPresent(String name) {
+		return System.getProperty(SETTING_PREFIX + name) != null;
+	}
+
+	private static double getDoubleSetting(String name, double defaultValue) {
+		return Double.parseDouble(System.getProperty(SETTING_PREFIX + name, String.valueOf(defaultValue)));
+	}
+
+	private static String getStringSetting(String name, String defaultValue) {
+		return System.getProperty(SETTING_PREFIX + name, defaultValue);
+	}
 }
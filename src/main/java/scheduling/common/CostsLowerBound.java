@@ -0,0 +1,167 @@
+package scheduling.common;
+
+import java.util.Arrays;
+
+/**
+ * Estimates a lower bound of the costs of all schedules the searches can reach. If a solution reaches the bound, it is
+ * optimal and the searches can be stopped.
+ * <p>
+ * The costs of every employee are bounded on their own, as if no other employee was competing for the days: the
+ * cheapest way to work all fixed days, using any available days in between which are not fixed for another employee,
+ * but not more days than the employee has to work in total. The forbidden intervals are checked against a last block
+ * shift of one day, which is the shortest possible one. In addition, a mandatory block shift on a fixed day is
+ * violated if the fixed employee is not available on the next day or if it is fixed for another employee.
+ */
+public class CostsLowerBound {
+	private final ProblemInstance problemInstance;
+	private final SolutionCostMapper solutionCostMapper;
+	private final long workedFixedDaysOfAllEmployees;
+
+	public CostsLowerBound(ProblemInstance problemInstance) {
+		this.problemInstance = problemInstance;
+		this.solutionCostMapper = new SolutionCostMapper(problemInstance);
+
+		long workedFixedDays = 0;
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			workedFixedDays |= getWorkedFixedDays(employee);
+		}
+		this.workedFixedDaysOfAllEmployees = workedFixedDays;
+	}
+
+	public double calculate() {
+		double lowerBound = Config.OPTIMAL_SOLUTION;
+
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			lowerBound += calculateForEmployee(employee);
+		}
+		for (int day = 0; day < problemInstance.getLengthOfMonth() - 1; day++) {
+			lowerBound += calculateForMandatoryBlockShift(day);
+		}
+		return lowerBound;
+	}
+
+	/**
+	 * Finds the cheapest working days from the first to the last fixed day of the employee by dynamic programming
+	 * over the last working day, the number of consecutive shifts up to it and the number of days worked so far.
+	 * Working before the first or after the last fixed day can only add costs, so these days are left out.
+	 */
+	private double calculateForEmployee(int employee) {
+		long fixedDays = getWorkedFixedDays(employee);
+		long availableDays = problemInstance.getAvailableDaysOfEmployee(employee)
+				& ~(workedFixedDaysOfAllEmployees & ~fixedDays);
+		if (Long.bitCount(fixedDays) < 2) {
+			return 0;
+		}
+
+		int lengthOfMonth = problemInstance.getLengthOfMonth();
+		int maxNumberOfDays = problemInstance.getDaysToWorkInTotalForEmployee(employee);
+		int firstFixedDay = Long.numberOfTrailingZeros(fixedDays);
+		int lastFixedDay = 63 - Long.numberOfLeadingZeros(fixedDays);
+
+		double[][][] costs = new double[lengthOfMonth][lengthOfMonth + 1][maxNumberOfDays + 1];
+		for (double[][] costsOfDay : costs) {
+			for (double[] costsOfConsecutiveShifts : costsOfDay) {
+				Arrays.fill(costsOfConsecutiveShifts, Double.MAX_VALUE);
+			}
+		}
+		costs[firstFixedDay][1][1] = 0;
+
+		for (int day = firstFixedDay; day < lastFixedDay; day++) {
+			if ((availableDays & (1L << day)) == 0) {
+				continue;
+			}
+			long laterFixedDays = fixedDays & -(1L << (day + 1));
+			int nextFixedDay = Long.numberOfTrailingZeros(laterFixedDays);
+			long nextDays = availableDays & -(1L << (day + 1)) & ((1L << (nextFixedDay + 1)) - 1);
+
+			for (int consecutiveShifts = 1; consecutiveShifts <= day + 1; consecutiveShifts++) {
+				for (int numberOfDays = 1; numberOfDays < maxNumberOfDays; numberOfDays++) {
+					double costsSoFar = costs[day][consecutiveShifts][numberOfDays];
+					if (costsSoFar == Double.MAX_VALUE) {
+						continue;
+					}
+
+					for (long remainingDays = nextDays; remainingDays != 0; remainingDays &= remainingDays - 1) {
+						int nextDay = Long.numberOfTrailingZeros(remainingDays);
+						int daysSinceLastShift = nextDay - day;
+						int nextConsecutiveShifts = daysSinceLastShift == 1 ? consecutiveShifts + 1 : 1;
+						double nextCosts = costsSoFar + solutionCostMapper.calculateCostsOfShift(employee,
+								daysSinceLastShift, nextConsecutiveShifts, 1);
+
+						double[] costsOfNextDay = costs[nextDay][nextConsecutiveShifts];
+						costsOfNextDay[numberOfDays + 1] = Math.min(costsOfNextDay[numberOfDays + 1], nextCosts);
+					}
+				}
+			}
+		}
+
+		double lowerBound = Double.MAX_VALUE;
+		for (double[] costsOfConsecutiveShifts : costs[lastFixedDay]) {
+			for (double costsOfLastDay : costsOfConsecutiveShifts) {
+				lowerBound = Math.min(lowerBound, costsOfLastDay);
+			}
+		}
+		return lowerBound == Double.MAX_VALUE ? 0 : lowerBound;
+	}
+
+	/**
+	 * Finds for every day and number of consecutive shifts up to it the cheapest costs of the employee from this day
+	 * on to the last of the given fixed days, working all fixed days in between and any of the given available days.
+	 * This is the bound of {@link #calculateForEmployee(int)} for the rest of the month, computed backwards from the
+	 * last fixed day and without the limit of days in total. The costs of the shift on the day itself are not included.
+	 */
+	public double[][] calculateFromDayForEmployee(int employee, long fixedDays, long availableDays) {
+		int lengthOfMonth = problemInstance.getLengthOfMonth();
+		double[][] costs = new double[lengthOfMonth][lengthOfMonth + 1];
+		if (fixedDays == 0) {
+			return costs;
+		}
+
+		long daysToWork = availableDays | fixedDays;
+		int lastFixedDay = 63 - Long.numberOfLeadingZeros(fixedDays);
+		for (int day = lastFixedDay - 1; day >= 0; day--) {
+			long laterFixedDays = fixedDays & -(1L << (day + 1));
+			int nextFixedDay = Long.numberOfTrailingZeros(laterFixedDays);
+			long nextDays = daysToWork & -(1L << (day + 1)) & ((1L << (nextFixedDay + 1)) - 1);
+
+			for (int consecutiveShifts = 1; consecutiveShifts <= day + 1; consecutiveShifts++) {
+				double lowerBound = Double.MAX_VALUE;
+				for (long remainingDays = nextDays; remainingDays != 0; remainingDays &= remainingDays - 1) {
+					int nextDay = Long.numberOfTrailingZeros(remainingDays);
+					int daysSinceLastShift = nextDay - day;
+					int nextConsecutiveShifts = daysSinceLastShift == 1 ? consecutiveShifts + 1 : 1;
+					lowerBound = Math.min(lowerBound, costs[nextDay][nextConsecutiveShifts]
+							+ solutionCostMapper.calculateCostsOfShift(employee, daysSinceLastShift,
+									nextConsecutiveShifts, 1));
+				}
+				costs[day][consecutiveShifts] = lowerBound;
+			}
+		}
+		return costs;
+	}
+
+	private double calculateForMandatoryBlockShift(int day) {
+		int employee = problemInstance.getEmployeeOnFixedDay(day);
+		if (employee == Config.MISSING_EMPLOYEE || (getWorkedFixedDays(employee) & (1L << day)) == 0) {
+			return 0;
+		}
+
+		boolean isNextDayFixedForOtherEmployee = (workedFixedDaysOfAllEmployees & ~getWorkedFixedDays(employee)
+				& (1L << (day + 1))) != 0;
+		boolean canWorkNextDay = problemInstance.isEmployeeAvailableOnDay(employee, day + 1)
+				&& !isNextDayFixedForOtherEmployee;
+		return canWorkNextDay ? 0 : solutionCostMapper.calculatePenaltyForMandatoryBlockShift(day, employee,
+				Config.MISSING_EMPLOYEE);
+	}
+
+	/**
+	 * Returns the fixed days of the employee which are worked by the employee in every solution. The initial solution
+	 * contains all fixed days if they are available and do not exceed the days the employee has to work in total, and
+	 * the searches never move an employee away from a fixed day.
+	 */
+	private long getWorkedFixedDays(int employee) {
+		long fixedDays = problemInstance.getFixedDaysOfEmployee(employee)
+				& problemInstance.getAvailableDaysOfEmployee(employee);
+		return Long.bitCount(fixedDays) <= problemInstance.getDaysToWorkInTotalForEmployee(employee) ? fixedDays : 0;
+	}
+}
@@ -0,0 +1,54 @@
+package scheduling.common;
+
+import java.util.random.RandomGenerator;
+
+import scheduling.lateAcceptance.LateAcceptanceHillClimbing;
+import scheduling.simulatedAnnealing.SimulatedAnnealing;
+import scheduling.tabuSearch.TabuSearch;
+
+public enum Engine {
+	TABU_SEARCH("tabuSearch"),
+	SIMULATED_ANNEALING("simulatedAnnealing"),
+	LATE_ACCEPTANCE("lateAcceptance");
+
+	/** Runs the engines alternately in the parallel searches. */
+	public static final String PORTFOLIO = "portfolio";
+
+	private final String nameInSetting;
+
+	Engine(String nameInSetting) {
+		this.nameInSetting = nameInSetting;
+	}
+
+	public String getNameInSetting() {
+		return nameInSetting;
+	}
+
+	/**
+	 * Creates an engine for the parallel search with the given index, which ends after the given share of its
+	 * configured iterations or steps without improvement.
+	 */
+	public ImprovementEngine create(ThreadsController threadsController, int search, double shareOfBudget,
+			RandomGenerator random) {
+		return switch (this) {
+			case TABU_SEARCH -> new TabuSearch(threadsController, search, shareOfBudget, random);
+			case SIMULATED_ANNEALING -> new SimulatedAnnealing(threadsController, shareOfBudget, random);
+			case LATE_ACCEPTANCE -> new LateAcceptanceHillClimbing(threadsController, shareOfBudget, random);
+		};
+	}
+
+	/**
+	 * Returns the engine of the parallel search with the given index for the value of the setting.
+	 */
+	public static Engine forSearch(String setting, int search) {
+		if (PORTFOLIO.equals(setting)) {
+			return values()[search % values().length];
+		}
+		for (Engine engine : values()) {
+			if (engine.nameInSetting.equals(setting)) {
+				return engine;
+			}
+		}
+		throw new IllegalArgumentException("Unknown engine " + setting);
+	}
+}
@@ -0,0 +1,14 @@
+package scheduling.common;
+
+/**
+ * Improves an initial solution, e.g. the one of the shift matching, until the search ends or is stopped.
+ */
+public interface ImprovementEngine {
+
+	Solution run(Solution initialSolution);
+
+	/**
+	 * Returns the number of moves whose costs have been evaluated so far.
+	 */
+	long getNumberOfEvaluations();
+}
@@ -0,0 +1,30 @@
+package scheduling.common;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Passes new best solutions from the searches to the thread which reports them. Publishing never blocks: if the
+ * reporting thread falls behind and the stream is full, further improvements are dropped, since only the latest one
+ * matters and it can still be taken from the {@link BestSolutionHolder}.
+ */
+public class ImprovementStream {
+	private static final int CAPACITY = 64;
+
+	private final BlockingQueue<Solution> improvements = new ArrayBlockingQueue<>(CAPACITY);
+
+	public void publish(Solution solution) {
+		improvements.offer(solution);
+	}
+
+	public Solution take() throws InterruptedException {
+		return improvements.take();
+	}
+
+	/**
+	 * Returns the next improvement or null if there is none at the moment.
+	 */
+	public Solution poll() {
+		return improvements.poll();
+	}
+}
@@ -0,0 +1,114 @@
+package scheduling.common;
+
+/**
+ * Immutable, primitive representation of the constraints of one schedule. It is compiled once after the input has
+ * been read and shared read-only by all solver threads. Days are stored as bitsets where bit n stands for day n of
+ * the month. The days to work in total are rounded down to whole days, as only whole shifts can be assigned. All other
+ * limits per employee keep their fractional part, as they are only compared with numbers of days.
+ */
+public final class ProblemInstance {
+	private final int lengthOfMonth;
+	private final long freeDays;
+	private final long singleShiftForbiddenDays;
+	private final int[] fixedEmployeeOnDay;
+	private final long[] fixedDaysOfEmployee;
+	private final long[] availableDaysOfEmployee;
+	private final double[] maxLengthOfShiftPerEmployee;
+	private final double[] wishedLengthOfShiftPerEmployee;
+	private final double[] additionalFreeDaysBetweenShifts;
+	private final int[] daysToWorkInTotalPerEmployee;
+	private final double[] daysToWorkAtFreeDayPerEmployee;
+	private final double[] expectedDaysBetweenShiftsPerEmployee;
+
+	public ProblemInstance(int lengthOfMonth, long freeDays, long singleShiftForbiddenDays, int[] fixedEmployeeOnDay,
+			long[] availableDaysOfEmployee, double[] maxLengthOfShiftPerEmployee,
+			double[] wishedLengthOfShiftPerEmployee, double[] additionalFreeDaysBetweenShifts,
+			int[] daysToWorkInTotalPerEmployee, double[] daysToWorkAtFreeDayPerEmployee,
+			double[] expectedDaysBetweenShiftsPerEmployee) {
+		this.lengthOfMonth = lengthOfMonth;
+		this.freeDays = freeDays;
+		this.singleShiftForbiddenDays = singleShiftForbiddenDays;
+		this.fixedEmployeeOnDay = fixedEmployeeOnDay.clone();
+		this.availableDaysOfEmployee = availableDaysOfEmployee.clone();
+		this.maxLengthOfShiftPerEmployee = maxLengthOfShiftPerEmployee.clone();
+		this.wishedLengthOfShiftPerEmployee = wishedLengthOfShiftPerEmployee.clone();
+		this.additionalFreeDaysBetweenShifts = additionalFreeDaysBetweenShifts.clone();
+		this.daysToWorkInTotalPerEmployee = daysToWorkInTotalPerEmployee.clone();
+		this.daysToWorkAtFreeDayPerEmployee = daysToWorkAtFreeDayPerEmployee.clone();
+		this.expectedDaysBetweenShiftsPerEmployee = expectedDaysBetweenShiftsPerEmployee.clone();
+		this.fixedDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+
+		for (int day = 0; day < lengthOfMonth; day++) {
+			if (fixedEmployeeOnDay[day] != Config.MISSING_EMPLOYEE) {
+				fixedDaysOfEmployee[fixedEmployeeOnDay[day]] |= 1L << day;
+			}
+		}
+	}
+
+	public int getLengthOfMonth() {
+		return lengthOfMonth;
+	}
+
+	public long getDaysOfMonth() {
+		return (1L << lengthOfMonth) - 1;
+	}
+
+	public long getFreeDays() {
+		return freeDays;
+	}
+
+	public boolean isFreeDay(int day) {
+		return (freeDays & (1L << day)) != 0;
+	}
+
+	public long getSingleShiftForbiddenDays() {
+		return singleShiftForbiddenDays;
+	}
+
+	public boolean isSingleShiftForbiddenOnDay(int day) {
+		return (singleShiftForbiddenDays & (1L << day)) != 0;
+	}
+
+	public int getEmployeeOnFixedDay(int day) {
+		return fixedEmployeeOnDay[day];
+	}
+
+	public long getFixedDaysOfEmployee(int employee) {
+		return employee == Config.MISSING_EMPLOYEE ? 0 : fixedDaysOfEmployee[employee];
+	}
+
+	public long getAvailableDaysOfEmployee(int employee) {
+		return employee == Config.MISSING_EMPLOYEE ? getDaysOfMonth() : availableDaysOfEmployee[employee];
+	}
+
+	public boolean isEmployeeAvailableOnDay(int employee, int day) {
+		if (employee == Config.MISSING_EMPLOYEE) {
+			return true;
+		}
+		return (availableDaysOfEmployee[employee] & (1L << day)) != 0;
+	}
+
+	public double getMaxLengthOfShiftPerEmployee(int employee) {
+		return maxLengthOfShiftPerEmployee[employee];
+	}
+
+	public double getWishedLengthOfShiftForEmployee(int employee) {
+		return wishedLengthOfShiftPerEmployee[employee];
+	}
+
+	public double getExpectedDaysBetweenShiftsForEmployee(int employee) {
+		return expectedDaysBetweenShiftsPerEmployee[employee];
+	}
+
+	public double getAdditionalFreeDaysBetweenShifts(int employee) {
+		return additionalFreeDaysBetweenShifts[employee];
+	}
+
+	public int getDaysToWorkInTotalForEmployee(int employee) {
+		return daysToWorkInTotalPerEmployee[employee];
+	}
+
+	public double getDaysToWorkAtFreeDayForEmployee(int employee) {
+		return daysToWorkAtFreeDayPerEmployee[employee];
+	}
+}
@@ -2,25 +2,52 @@ package scheduling.common;
 
 import java.util.Arrays;
 
-import scheduling.spreadsheet.SpreadsheetReader;
-
 import static scheduling.common.Config.UNKNOWN_SOLUTION_COSTS;
 
 public class Solution {
 	private final int[] solution;
-	private final SpreadsheetReader spreadsheetReader;
+	private final ProblemInstance problemInstance;
 	private int numberOfRetries;
 	private final int[] numberOfFreeDaysForEmployee;
+	private final long[] workingDaysOfEmployee;
+	private long daysWithoutEmployee;
+	private final double[] costsOfEmployee;
+	private final double[] costsOfMandatoryBlockShift;
 	private double costs;
 	private final SolutionCostMapper solutionCostMapper;
 
-	public Solution(int[] solution, int[] numberOfFreeDaysForEmployee, SpreadsheetReader input, SolutionCostMapper solutionCostMapper) {
+	public Solution(int[] solution, int[] numberOfFreeDaysForEmployee, ProblemInstance problemInstance, SolutionCostMapper solutionCostMapper) {
 		this.solution = solution;
 		this.numberOfFreeDaysForEmployee = numberOfFreeDaysForEmployee;
-		this.spreadsheetReader = input;
+		this.problemInstance = problemInstance;
 		this.costs = UNKNOWN_SOLUTION_COSTS;
 		this.numberOfRetries = 0;
 		this.solutionCostMapper = solutionCostMapper;
+		this.workingDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+		this.daysWithoutEmployee = 0;
+		this.costsOfEmployee = new double[Config.NUMBER_OF_EMPLOYEES];
+		this.costsOfMandatoryBlockShift = new double[solution.length];
+		Arrays.fill(costsOfEmployee, UNKNOWN_SOLUTION_COSTS);
+		Arrays.fill(costsOfMandatoryBlockShift, UNKNOWN_SOLUTION_COSTS);
+
+		for (int day = 0; day < solution.length; day++) {
+			toggleWorkingDays(solution[day], 1L << day);
+		}
+	}
+
+	private Solution(Solution other) {
+		this.solution = Arrays.copyOf(other.solution, other.solution.length);
+		this.numberOfFreeDaysForEmployee = Arrays.copyOf(other.numberOfFreeDaysForEmployee,
+				other.numberOfFreeDaysForEmployee.length);
+		this.problemInstance = other.problemInstance;
+		this.costs = other.costs;
+		this.numberOfRetries = 0;
+		this.solutionCostMapper = other.solutionCostMapper;
+		this.workingDaysOfEmployee = Arrays.copyOf(other.workingDaysOfEmployee, other.workingDaysOfEmployee.length);
+		this.daysWithoutEmployee = other.daysWithoutEmployee;
+		this.costsOfEmployee = Arrays.copyOf(other.costsOfEmployee, other.costsOfEmployee.length);
+		this.costsOfMandatoryBlockShift = Arrays.copyOf(other.costsOfMandatoryBlockShift,
+				other.costsOfMandatoryBlockShift.length);
 	}
 
 	public boolean canBeRetried() {
@@ -31,17 +58,61 @@ public class Solution {
 		return solution[day];
 	}
 
+	public long getWorkingDaysOfEmployee(int employee) {
+		return employee == Config.MISSING_EMPLOYEE ? daysWithoutEmployee : workingDaysOfEmployee[employee];
+	}
+
+	public long getDaysWithoutEmployee() {
+		return daysWithoutEmployee;
+	}
+
 	public void exchangeEmployeesOnDays(int day1, int day2) {
-		costs = UNKNOWN_SOLUTION_COSTS;
-		int temp = solution[day1];
-		solution[day1] = solution[day2];
-		solution[day2] = temp;
+		invalidateCostsAroundDay(day1);
+		invalidateCostsAroundDay(day2);
+		int employee1 = solution[day1];
+		int employee2 = solution[day2];
+		solution[day1] = employee2;
+		solution[day2] = employee1;
+
+		long exchangedDays = (1L << day1) | (1L << day2);
+		toggleWorkingDays(employee1, exchangedDays);
+		toggleWorkingDays(employee2, exchangedDays);
+
+		invalidateCostsAroundDay(day1);
+		invalidateCostsAroundDay(day2);
+	}
+
+	/**
+	 * Assigns the given employees to the given days and keeps the number of free days of all employees up to date.
+	 */
+	public void assignEmployeesToDays(int[] days, int[] employees, int numberOfDays) {
+		for (int index = 0; index < numberOfDays; index++) {
+			invalidateCostsAroundDay(days[index]);
+		}
+
+		for (int index = 0; index < numberOfDays; index++) {
+			int day = days[index];
+			int oldEmployee = solution[day];
+			int newEmployee = employees[index];
+
+			if (problemInstance.isFreeDay(day)) {
+				changeNumberOfFreeDays(oldEmployee, -1);
+				changeNumberOfFreeDays(newEmployee, 1);
+			}
+			toggleWorkingDays(oldEmployee, 1L << day);
+			toggleWorkingDays(newEmployee, 1L << day);
+			solution[day] = newEmployee;
+		}
+
+		for (int index = 0; index < numberOfDays; index++) {
+			invalidateCostsAroundDay(days[index]);
+		}
 	}
 
 	public void exchangeFreeDayBetweenEmployees(int fromDay, int toDay) {
 		int fromEmployee = getEmployeeForDay(fromDay);
 		int toEmployee = getEmployeeForDay(toDay);
-		int direction = spreadsheetReader.isFreeDay(fromDay) ? 1 : -1;
+		int direction = problemInstance.isFreeDay(fromDay) ? 1 : -1;
 
 		if (fromEmployee != Config.MISSING_EMPLOYEE) {
 			numberOfFreeDaysForEmployee[fromEmployee] -= direction;
@@ -56,12 +127,24 @@ public class Solution {
 	}
 
 	public Solution createCopy() {
-		return new Solution(Arrays.copyOf(solution, solution.length),
-				Arrays.copyOf(numberOfFreeDaysForEmployee, numberOfFreeDaysForEmployee.length), spreadsheetReader, solutionCostMapper);
+		return new Solution(this);
 	}
 
-	public void setSolutionCosts(double costs) {
-		this.costs = costs;
+	/**
+	 * Overwrites this solution with another solution of the same schedule, including all cached costs, so that a
+	 * search can keep its solutions in buffers instead of creating copies.
+	 */
+	public void copyFrom(Solution other) {
+		System.arraycopy(other.solution, 0, solution, 0, solution.length);
+		System.arraycopy(other.numberOfFreeDaysForEmployee, 0, numberOfFreeDaysForEmployee, 0,
+				numberOfFreeDaysForEmployee.length);
+		System.arraycopy(other.workingDaysOfEmployee, 0, workingDaysOfEmployee, 0, workingDaysOfEmployee.length);
+		System.arraycopy(other.costsOfEmployee, 0, costsOfEmployee, 0, costsOfEmployee.length);
+		System.arraycopy(other.costsOfMandatoryBlockShift, 0, costsOfMandatoryBlockShift, 0,
+				costsOfMandatoryBlockShift.length);
+		this.daysWithoutEmployee = other.daysWithoutEmployee;
+		this.costs = other.costs;
+		this.numberOfRetries = 0;
 	}
 
 	public double getCosts() {
@@ -72,4 +155,75 @@ public class Solution {
 		return costs;
 	}
 
-}
\ No newline at end of file
+	public double getCostsOfExchange(int day1, int day2) {
+		return solutionCostMapper.calculateCostsOfExchange(this, day1, day2);
+	}
+
+	public double getCostsOfAssignment(int[] days, int[] employees, int numberOfDays) {
+		return solutionCostMapper.calculateCostsOfAssignment(this, days, employees, numberOfDays);
+	}
+
+	public double getCostsOfEmployee(int employee) {
+		if (costsOfEmployee[employee] == UNKNOWN_SOLUTION_COSTS) {
+			costsOfEmployee[employee] = solutionCostMapper.calculateCostsOfEmployee(employee,
+					workingDaysOfEmployee[employee], daysWithoutEmployee);
+		}
+		return costsOfEmployee[employee];
+	}
+
+	public double getCostsOfMandatoryBlockShift(int day) {
+		if (costsOfMandatoryBlockShift[day] == UNKNOWN_SOLUTION_COSTS) {
+			int employeeOnNextDay = day + 1 < solution.length ? solution[day + 1] : Config.MISSING_EMPLOYEE;
+			costsOfMandatoryBlockShift[day] = solutionCostMapper.calculatePenaltyForMandatoryBlockShift(day,
+					solution[day], employeeOnNextDay);
+		}
+		return costsOfMandatoryBlockShift[day];
+	}
+
+	public int getEmployeeWithHighestCosts() {
+		int employeeWithHighestCosts = Config.MISSING_EMPLOYEE;
+		double highestCosts = Config.OPTIMAL_SOLUTION;
+
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			if (getCostsOfEmployee(employee) > highestCosts) {
+				highestCosts = getCostsOfEmployee(employee);
+				employeeWithHighestCosts = employee;
+			}
+		}
+		return employeeWithHighestCosts;
+	}
+
+	private void invalidateCostsAroundDay(int day) {
+		costs = UNKNOWN_SOLUTION_COSTS;
+		invalidateCostsOfEmployee(solution[day]);
+		costsOfMandatoryBlockShift[day] = UNKNOWN_SOLUTION_COSTS;
+
+		if (day > 0) {
+			costsOfMandatoryBlockShift[day - 1] = UNKNOWN_SOLUTION_COSTS;
+
+			if (solution[day] == Config.MISSING_EMPLOYEE) {
+				invalidateCostsOfEmployee(solution[day - 1]);
+			}
+		}
+	}
+
+	private void changeNumberOfFreeDays(int employee, int change) {
+		if (employee != Config.MISSING_EMPLOYEE) {
+			numberOfFreeDaysForEmployee[employee] += change;
+		}
+	}
+
+	private void invalidateCostsOfEmployee(int employee) {
+		if (employee != Config.MISSING_EMPLOYEE) {
+			costsOfEmployee[employee] = UNKNOWN_SOLUTION_COSTS;
+		}
+	}
+
+	private void toggleWorkingDays(int employee, long days) {
+		if (employee == Config.MISSING_EMPLOYEE) {
+			daysWithoutEmployee ^= days;
+		} else {
+			workingDaysOfEmployee[employee] ^= days;
+		}
+	}
+}
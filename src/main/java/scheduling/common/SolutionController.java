@@ -1,28 +1,63 @@
 package scheduling.common;
 
+import java.util.random.RandomGenerator;
+
 import scheduling.matching.ShiftMatching;
-import scheduling.tabuSearch.TabuSearch;
 
 public class SolutionController implements Runnable {
 	private final ThreadsController threadsController;
+	private final int search;
+	private final Solution initialSolution;
+	private final long seedOfShiftMatching;
+	private final Engine engine;
 
-	public SolutionController(ThreadsController threadsController) {
+	public SolutionController(ThreadsController threadsController, int search, Solution initialSolution,
+			Engine engine) {
 		this.threadsController = threadsController;
+		this.search = search;
+		this.initialSolution = initialSolution;
+		this.seedOfShiftMatching = 0;
+		this.engine = engine;
 	}
 
+	public SolutionController(ThreadsController threadsController, int search, long seedOfShiftMatching,
+			Engine engine) {
+		this.threadsController = threadsController;
+		this.search = search;
+		this.initialSolution = null;
+		this.seedOfShiftMatching = seedOfShiftMatching;
+		this.engine = engine;
+	}
+
+	/**
+	 * Improves the initial solution and starts over from new initial solutions as long as the time limit allows. The
+	 * best solution of all restarts is the final solution of the search, not the one of the last restart, which may
+	 * have been cut off by the time limit.
+	 */
 	@Override
 	public void run() {
-		Solution solution = executeShiftMatching();
-		solution = executeTabuSearch(solution);
-		threadsController.setSolution(solution);
+		RandomGenerator random = threadsController.getRandomOfSearch(search);
+		Solution solution = initialSolution != null ? initialSolution : executeShiftMatching(seedOfShiftMatching);
+		Solution bestSolution = improve(solution, random);
+
+		while (threadsController.canRestartSearch()) {
+			threadsController.publishSolution(bestSolution);
+			solution = improve(executeShiftMatching(random.nextLong()), random);
+			if (solution.getCosts() < bestSolution.getCosts()) {
+				bestSolution = solution;
+			}
+		}
+		threadsController.setSolution(search, bestSolution);
 	}
 
-	private Solution executeShiftMatching() {
-		return new ShiftMatching(threadsController).run();
+	private Solution improve(Solution solution, RandomGenerator random) {
+		ImprovementEngine improvementEngine = engine.create(threadsController, search, 1, random);
+		Solution improvedSolution = improvementEngine.run(solution);
+		threadsController.addEvaluations(engine, improvementEngine.getNumberOfEvaluations());
+		return improvedSolution;
 	}
 
-	private Solution executeTabuSearch(Solution solution) {
-		TabuSearch tabuSearch = new TabuSearch(threadsController);
-		return tabuSearch.run(solution);
+	private Solution executeShiftMatching(long seed) {
+		return new ShiftMatching(threadsController, seed).run();
 	}
 }
\ No newline at end of file
@@ -1,123 +1,280 @@
 package scheduling.common;
 
-import java.util.Arrays;
-import scheduling.spreadsheet.SpreadsheetReader;
-
 public class SolutionCostMapper {
 
-	private final SpreadsheetReader spreadsheetReader;
-	private final CalculationState state;
+	private final ProblemInstance problemInstance;
 
-	public SolutionCostMapper(SpreadsheetReader reader) {
-		this.spreadsheetReader = reader;
-		this.state = new CalculationState();
+	public SolutionCostMapper(ProblemInstance problemInstance) {
+		this.problemInstance = problemInstance;
 	}
 
+	/**
+	 * Sums up the costs of all employees and mandatory block shifts. The parts are cached inside the solution, so
+	 * only the parts invalidated since the last calculation are scored again.
+	 */
 	public double calculateTotalCosts(Solution solution) {
 		if (solution == null) {
 			return Config.OPTIMAL_SOLUTION;
 		}
-		state.initialize();
 		double totalCosts = Config.OPTIMAL_SOLUTION;
 
-		for (int day = 0; day < spreadsheetReader.getLengthOfMonth(); day++) {
-			int currentEmployee = solution.getEmployeeForDay(day);
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			totalCosts += solution.getCostsOfEmployee(employee);
+		}
 
-			if (currentEmployee == Config.MISSING_EMPLOYEE) {
-				continue;
+		for (int day = 0; day < problemInstance.getLengthOfMonth(); day++) {
+			totalCosts += solution.getCostsOfMandatoryBlockShift(day);
+		}
+		return totalCosts;
+	}
+
+	/**
+	 * Calculates the total costs the solution would have after exchanging the employees on both days without
+	 * modifying the solution. Only the employees working on one of the days, the employees whose block shift ends
+	 * right before a day changing from or to a missing employee and the mandatory block shifts around both days are
+	 * scored again.
+	 */
+	public double calculateCostsOfExchange(Solution solution, int day1, int day2) {
+		int employee1 = solution.getEmployeeForDay(day1);
+		int employee2 = solution.getEmployeeForDay(day2);
+
+		if (employee1 == employee2) {
+			return solution.getCosts();
+		}
+
+		long exchangedDays = (1L << day1) | (1L << day2);
+		long daysWithoutEmployee = solution.getDaysWithoutEmployee();
+		boolean isMissingEmployeeExchanged = employee1 == Config.MISSING_EMPLOYEE
+				|| employee2 == Config.MISSING_EMPLOYEE;
+		long newDaysWithoutEmployee = isMissingEmployeeExchanged ? daysWithoutEmployee ^ exchangedDays
+				: daysWithoutEmployee;
+
+		double costsDelta = calculateCostsDeltaOfEmployee(solution, employee1, exchangedDays, newDaysWithoutEmployee)
+				+ calculateCostsDeltaOfEmployee(solution, employee2, exchangedDays, newDaysWithoutEmployee);
+
+		if (isMissingEmployeeExchanged) {
+			int employeeBeforeDay1 = day1 > 0 ? solution.getEmployeeForDay(day1 - 1) : Config.MISSING_EMPLOYEE;
+			int employeeBeforeDay2 = day2 > 0 ? solution.getEmployeeForDay(day2 - 1) : Config.MISSING_EMPLOYEE;
+
+			if (employeeBeforeDay1 != employee1 && employeeBeforeDay1 != employee2) {
+				costsDelta += calculateCostsDeltaOfEmployee(solution, employeeBeforeDay1, 0, newDaysWithoutEmployee);
+			}
+			if (employeeBeforeDay2 != employee1 && employeeBeforeDay2 != employee2
+					&& employeeBeforeDay2 != employeeBeforeDay1) {
+				costsDelta += calculateCostsDeltaOfEmployee(solution, employeeBeforeDay2, 0, newDaysWithoutEmployee);
 			}
+		}
+
+		costsDelta += calculateMandatoryBlockShiftDelta(solution, day1 - 1, day1, day2)
+				+ calculateMandatoryBlockShiftDelta(solution, day1, day1, day2);
+		if (day2 - 1 != day1) {
+			costsDelta += calculateMandatoryBlockShiftDelta(solution, day2 - 1, day1, day2);
+		}
+		if (day2 != day1 - 1) {
+			costsDelta += calculateMandatoryBlockShiftDelta(solution, day2, day1, day2);
+		}
 
-			if (day > 0 && currentEmployee != solution.getEmployeeForDay(day - 1)) {
-				handleShiftTransition(solution.getEmployeeForDay(day - 1));
+		return solution.getCosts() + costsDelta;
+	}
+
+	/**
+	 * Calculates the total costs the solution would have after assigning the given employees to the given days
+	 * without modifying the solution. Like for an exchange, only the employees whose days change, the employees
+	 * working right before a day changing from or to a missing employee and the mandatory block shifts around the
+	 * changed days are scored again.
+	 */
+	public double calculateCostsOfAssignment(Solution solution, int[] days, int[] employees, int numberOfDays) {
+		long changedDays = 0;
+		long newDaysWithoutEmployee = solution.getDaysWithoutEmployee();
+		long affectedEmployees = 0;
+
+		for (int index = 0; index < numberOfDays; index++) {
+			long day = 1L << days[index];
+			int oldEmployee = solution.getEmployeeForDay(days[index]);
+			changedDays |= day;
+			affectedEmployees |= getEmployeeBit(oldEmployee) | getEmployeeBit(employees[index]);
+
+			if ((oldEmployee == Config.MISSING_EMPLOYEE) != (employees[index] == Config.MISSING_EMPLOYEE)) {
+				newDaysWithoutEmployee ^= day;
 			}
+		}
 
-			totalCosts += calculateDailyPenalties(solution, day);
+		long daysChangingMissingEmployee = solution.getDaysWithoutEmployee() ^ newDaysWithoutEmployee;
+		for (int index = 0; index < numberOfDays; index++) {
+			int day = days[index];
+			if ((daysChangingMissingEmployee & (1L << day)) != 0 && day > 0) {
+				affectedEmployees |= getEmployeeBit(getEmployeeAfterAssignment(solution, day - 1, days, employees,
+						numberOfDays, changedDays));
+			}
+		}
 
-			updateEmployeeState(currentEmployee, day);
+		double costsDelta = 0;
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			if ((affectedEmployees & getEmployeeBit(employee)) == 0) {
+				continue;
+			}
+			long workingDays = solution.getWorkingDaysOfEmployee(employee) & ~changedDays;
+			for (int index = 0; index < numberOfDays; index++) {
+				workingDays |= employees[index] == employee ? 1L << days[index] : 0;
+			}
+			costsDelta += calculateCostsOfEmployee(employee, workingDays, newDaysWithoutEmployee)
+					- solution.getCostsOfEmployee(employee);
 		}
 
-		return totalCosts;
+		long daysOfMandatoryBlockShifts = (changedDays | (changedDays >>> 1)) & (problemInstance.getDaysOfMonth() >>> 1);
+		while (daysOfMandatoryBlockShifts != 0) {
+			int day = Long.numberOfTrailingZeros(daysOfMandatoryBlockShifts);
+			daysOfMandatoryBlockShifts &= daysOfMandatoryBlockShifts - 1;
+			costsDelta += calculatePenaltyForMandatoryBlockShift(day,
+					getEmployeeAfterAssignment(solution, day, days, employees, numberOfDays, changedDays),
+					getEmployeeAfterAssignment(solution, day + 1, days, employees, numberOfDays, changedDays))
+					- solution.getCostsOfMandatoryBlockShift(day);
+		}
+
+		return solution.getCosts() + costsDelta;
 	}
 
-	private void handleShiftTransition(int previousEmployee) {
-		if (previousEmployee != Config.MISSING_EMPLOYEE) {
-			state.lengthOfLastBlockShift[previousEmployee] = state.currentConsecutiveShifts;
+	/**
+	 * Calculates the costs caused by the shifts of one employee. Besides the working days of the employee it only
+	 * depends on the days without any employee, since a block shift followed by such a day is not taken into
+	 * account as the last block shift of the employee.
+	 */
+	public double calculateCostsOfEmployee(int employee, long workingDays, long daysWithoutEmployee) {
+		double costs = 0.0;
+		int lastDay = Config.MISSING_EMPLOYEE;
+		int consecutiveShifts = 1;
+		int lengthOfLastBlockShift = 1;
+		long remainingDays = workingDays;
+
+		while (remainingDays != 0) {
+			int day = Long.numberOfTrailingZeros(remainingDays);
+			remainingDays &= remainingDays - 1;
+
+			if (lastDay != Config.MISSING_EMPLOYEE) {
+				int daysSinceLastShift = day - lastDay;
+
+				if (daysSinceLastShift == 1) {
+					consecutiveShifts++;
+				} else {
+					if ((daysWithoutEmployee & (1L << (lastDay + 1))) == 0) {
+						lengthOfLastBlockShift = consecutiveShifts;
+					}
+					consecutiveShifts = 1;
+				}
+				costs += calculateCostsOfShift(employee, daysSinceLastShift, consecutiveShifts, lengthOfLastBlockShift);
+			}
+			lastDay = day;
 		}
-		state.currentConsecutiveShifts = 1;
+		return costs;
 	}
 
-	private double calculateDailyPenalties(Solution solution, int day) {
-		double dailyCosts = 0.0;
-		int employee = solution.getEmployeeForDay(day);
+	/**
+	 * Calculates the costs of a shift which is worked the given number of days after the previous shift of the
+	 * employee. The number of consecutive shifts includes the new one.
+	 */
+	public double calculateCostsOfShift(int employee, int daysSinceLastShift, int consecutiveShifts,
+			int lengthOfLastBlockShift) {
+		double costs = daysSinceLastShift == 1
+				? calculatePenaltyForTooLongBlockShift(employee, consecutiveShifts)
+				: calculatePenaltyForForbiddenShiftInterval(employee, daysSinceLastShift, lengthOfLastBlockShift);
+		return costs + calculatePenaltyForWishedInterval(employee, daysSinceLastShift, consecutiveShifts);
+	}
 
-		dailyCosts += calculatePenaltyForMandatoryBlockShift(solution, day);
+	public double calculatePenaltyForMandatoryBlockShift(int day, int employee, int employeeOnNextDay) {
+		boolean isViolation = employee != Config.MISSING_EMPLOYEE
+				&& problemInstance.isSingleShiftForbiddenOnDay(day)
+				&& day < problemInstance.getLengthOfMonth() - 1
+				&& employee != employeeOnNextDay;
+		return isViolation ? Config.PENALTY_FOR_MANDATORY_BLOCK_SHIFT : 0;
+	}
 
-		if (state.lastOccurrenceOfEmployee[employee] == Config.MISSING_EMPLOYEE) {
-			return dailyCosts;
+	private double calculateCostsDeltaOfEmployee(Solution solution, int employee, long exchangedDays,
+			long newDaysWithoutEmployee) {
+		if (employee == Config.MISSING_EMPLOYEE) {
+			return 0;
 		}
+		long workingDays = solution.getWorkingDaysOfEmployee(employee);
+		return calculateCostsOfEmployee(employee, workingDays ^ exchangedDays, newDaysWithoutEmployee)
+				- solution.getCostsOfEmployee(employee);
+	}
 
-		int daysSinceLastShift = day - state.lastOccurrenceOfEmployee[employee];
-
-		if (daysSinceLastShift == 1) {
-			state.currentConsecutiveShifts++;
-			dailyCosts += calculatePenaltyForTooLongBlockShift(employee, state.currentConsecutiveShifts);
-		} else {
-			dailyCosts += calculatePenaltyForForbiddenShiftInterval(employee, daysSinceLastShift);
+	private double calculateMandatoryBlockShiftDelta(Solution solution, int day, int day1, int day2) {
+		if (day < 0 || day >= problemInstance.getLengthOfMonth() - 1) {
+			return 0;
 		}
+		double oldPenalty = solution.getCostsOfMandatoryBlockShift(day);
+		double newPenalty = calculatePenaltyForMandatoryBlockShift(day,
+				getEmployeeAfterExchange(solution, day, day1, day2),
+				getEmployeeAfterExchange(solution, day + 1, day1, day2));
+		return newPenalty - oldPenalty;
+	}
 
-		dailyCosts += calculatePenaltyForWishedInterval(employee, daysSinceLastShift, state.currentConsecutiveShifts);
-
-		return dailyCosts;
+	private static int getEmployeeAfterAssignment(Solution solution, int day, int[] days, int[] employees,
+			int numberOfDays, long changedDays) {
+		if ((changedDays & (1L << day)) != 0) {
+			for (int index = 0; index < numberOfDays; index++) {
+				if (days[index] == day) {
+					return employees[index];
+				}
+			}
+		}
+		return solution.getEmployeeForDay(day);
 	}
 
-	private void updateEmployeeState(int employee, int day) {
-		state.lastOccurrenceOfEmployee[employee] = day;
+	private static long getEmployeeBit(int employee) {
+		return employee == Config.MISSING_EMPLOYEE ? 0 : 1L << employee;
 	}
 
-	private double calculatePenaltyForMandatoryBlockShift(Solution solution, int day) {
-		boolean isViolation = spreadsheetReader.isSingleShiftForbiddenOnDay(day)
-				&& day < spreadsheetReader.getLengthOfMonth() - 1
-				&& solution.getEmployeeForDay(day) != solution.getEmployeeForDay(day + 1);
-		return isViolation ? Config.PENALTY_FOR_MANDATORY_BLOCK_SHIFT : 0;
+	private int getEmployeeAfterExchange(Solution solution, int day, int day1, int day2) {
+		if (day == day1) {
+			return solution.getEmployeeForDay(day2);
+		}
+		if (day == day2) {
+			return solution.getEmployeeForDay(day1);
+		}
+		return solution.getEmployeeForDay(day);
 	}
 
 	private double calculatePenaltyForTooLongBlockShift(int employee, int consecutiveDays) {
-		return consecutiveDays > spreadsheetReader.getMaxLengthOfShiftPerEmployee(employee)
+		return consecutiveDays > problemInstance.getMaxLengthOfShiftPerEmployee(employee)
 				? Config.PENALTY_FOR_FORBIDDEN_SHIFT
 				: 0;
 	}
 
-	private double calculatePenaltyForForbiddenShiftInterval(int employee, int daysSinceLastShift) {
-		return isForbiddenShortInterval(employee, daysSinceLastShift) ? Config.PENALTY_FOR_FORBIDDEN_SHIFT : 0;
+	private double calculatePenaltyForForbiddenShiftInterval(int employee, int daysSinceLastShift,
+			int lengthOfLastBlockShift) {
+		return isForbiddenShortInterval(employee, daysSinceLastShift, lengthOfLastBlockShift)
+				? Config.PENALTY_FOR_FORBIDDEN_SHIFT
+				: 0;
 	}
 
-	private boolean isForbiddenShortInterval(int employee, int daysSinceLastShift) {
-		boolean canWorkSingleDays = spreadsheetReader.getMaxLengthOfShiftPerEmployee(employee) == 1;
+	private boolean isForbiddenShortInterval(int employee, int daysSinceLastShift, int lengthOfLastBlockShift) {
+		boolean canWorkSingleDays = problemInstance.getMaxLengthOfShiftPerEmployee(employee) == 1;
 		if (canWorkSingleDays) {
 			return false;
 		}
 
-		boolean isTooSoonAfterLastBlock = daysSinceLastShift <= (state.lengthOfLastBlockShift[employee] +
-				spreadsheetReader.getAdditionalFreeDaysBetweenShifts(employee));
+		boolean isTooSoonAfterLastBlock = daysSinceLastShift <= (lengthOfLastBlockShift +
+				problemInstance.getAdditionalFreeDaysBetweenShifts(employee));
 		boolean isExactlyOneDayOff = daysSinceLastShift == Config.INTERVAL_FOR_ONE_DAY;
 
 		return isTooSoonAfterLastBlock || isExactlyOneDayOff;
 	}
 
 	private double calculatePenaltyForWishedInterval(int employee, int daysSinceLastShift, int currentConsecutiveShifts) {
-		if (spreadsheetReader.getWishedLengthOfShiftForEmployee(employee) <= 0) {
+		if (problemInstance.getWishedLengthOfShiftForEmployee(employee) <= 0) {
 			return 0;
 		}
 
 		boolean isNewShiftBlock = daysSinceLastShift > 1;
-		boolean isShiftBlockTooLong = currentConsecutiveShifts > spreadsheetReader.getMaxLengthOfShiftPerEmployee(employee);
+		boolean isShiftBlockTooLong = currentConsecutiveShifts > problemInstance.getMaxLengthOfShiftPerEmployee(employee);
 
 		if (!isNewShiftBlock && !isShiftBlockTooLong) {
 			return 0;
 		}
 
-		double expectedInterval = spreadsheetReader.getExpectedDaysBetweenShiftsForEmployee(employee);
-		double additionalFreeDays = spreadsheetReader.getAdditionalFreeDaysBetweenShifts(employee);
+		double expectedInterval = problemInstance.getExpectedDaysBetweenShiftsForEmployee(employee);
+		double additionalFreeDays = problemInstance.getAdditionalFreeDaysBetweenShifts(employee);
 
 		boolean shouldResetOffset = (employee == Config.MISSING_EMPLOYEE)
 				|| (additionalFreeDays > 0)
@@ -127,21 +284,4 @@ public class SolutionCostMapper {
 
 		return Math.max(0, Math.abs(daysSinceLastShift - expectedInterval) + offset);
 	}
-
-	private static class CalculationState {
-		final int[] lastOccurrenceOfEmployee;
-		final int[] lengthOfLastBlockShift;
-		int currentConsecutiveShifts;
-
-		CalculationState() {
-			this.lastOccurrenceOfEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
-			this.lengthOfLastBlockShift = new int[Config.NUMBER_OF_EMPLOYEES];
-		}
-
-		void initialize() {
-			Arrays.fill(this.lastOccurrenceOfEmployee, Config.MISSING_EMPLOYEE);
-			Arrays.fill(this.lengthOfLastBlockShift, 1);
-			this.currentConsecutiveShifts = 1;
-		}
-	}
 }
@@ -0,0 +1,85 @@
+package scheduling.common;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Races the parallel searches in rounds instead of giving all of them the whole budget. In every round, each search
+ * runs with a share of the configured budget, continuing from its best solution so far. After a round the searches are
+ * ranked by the costs of their solutions, the worst ones are dropped and their places are taken by clones of the best
+ * ones, which continue from the same solution with other random moves. The random generators belong to the places in
+ * the ranking, so that a clone draws other moves than the search it has been cloned from.
+ */
+public class SuccessiveHalvingRace {
+
+	private record Contestant(Solution solution, Engine engine) {
+	}
+
+	private final ThreadsController threadsController;
+	private final ExecutorService executorService;
+
+	public SuccessiveHalvingRace(ThreadsController threadsController, ExecutorService executorService) {
+		this.threadsController = threadsController;
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Runs all rounds for the given initial solutions and returns the final solutions, ordered by their costs. With a
+	 * time limit, further rounds are run until it is reached.
+	 */
+	public List<Solution> run(List<Solution> initialSolutions) throws InterruptedException, ExecutionException {
+		List<Contestant> contestants = new ArrayList<>(initialSolutions.size());
+		for (int i = 0; i < initialSolutions.size(); i++) {
+			contestants.add(new Contestant(initialSolutions.get(i), Engine.forSearch(Config.ENGINE, i)));
+		}
+
+		double shareOfBudget = 1.0 / Config.RACING_ROUNDS;
+		for (int round = 0; round < Config.RACING_ROUNDS || threadsController.canRestartSearch(); round++) {
+			if (threadsController.isStopped()) {
+				break;
+			}
+			contestants = runRound(contestants, shareOfBudget);
+			replaceWorstContestants(contestants);
+		}
+		return contestants.stream().map(Contestant::solution).toList();
+	}
+
+	private List<Contestant> runRound(List<Contestant> contestants, double shareOfBudget)
+			throws InterruptedException, ExecutionException {
+		List<Callable<Solution>> searches = new ArrayList<>(contestants.size());
+		for (int i = 0; i < contestants.size(); i++) {
+			Contestant contestant = contestants.get(i);
+			int search = i;
+			searches.add(() -> {
+				ImprovementEngine improvementEngine = contestant.engine().create(threadsController, search,
+						shareOfBudget, threadsController.getRandomOfSearch(search));
+				Solution solution = improvementEngine.run(contestant.solution());
+				threadsController.addEvaluations(contestant.engine(), improvementEngine.getNumberOfEvaluations());
+				return solution;
+			});
+		}
+
+		List<Future<Solution>> results = executorService.invokeAll(searches);
+		List<Contestant> rankedContestants = new ArrayList<>(contestants.size());
+		for (int i = 0; i < contestants.size(); i++) {
+			rankedContestants.add(new Contestant(results.get(i).get(), contestants.get(i).engine()));
+		}
+		rankedContestants.sort(Comparator.comparingDouble(contestant -> contestant.solution().getCosts()));
+		return rankedContestants;
+	}
+
+	private void replaceWorstContestants(List<Contestant> rankedContestants) {
+		int numberOfSurvivors = Math.max(1,
+				(int) Math.ceil(rankedContestants.size() * (1 - Config.RACING_ELIMINATED_SHARE)));
+
+		for (int i = numberOfSurvivors; i < rankedContestants.size(); i++) {
+			Contestant survivor = rankedContestants.get((i - numberOfSurvivors) % numberOfSurvivors);
+			rankedContestants.set(i, new Contestant(survivor.solution().createCopy(), survivor.engine()));
+		}
+	}
+}
@@ -1,40 +1,69 @@
 package scheduling.common;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.random.RandomGenerator;
 
+import scheduling.branchAndBound.BranchAndBound;
+import scheduling.matching.ShiftMatching;
 import scheduling.spreadsheet.SpreadsheetReader;
 import scheduling.spreadsheet.SpreadsheetWriter;
+import scheduling.tabuSearch.EliteBoard;
 import scheduling.ui.UiController;
 
 public class ThreadsController implements Runnable {
 	private final File inputFile;
 	private final SpreadsheetReader spreadsheetReader;
+	private ProblemInstance problemInstance;
 	private final UiController uiController;
 	private final boolean inUIMode;
-	private int numberOfFinishedSolutions;
-	private boolean outputHasBeenWritten;
-	private Solution bestSolution;
+	private final AtomicInteger numberOfFinishedSolutions;
+	private final AtomicBoolean outputHasBeenWritten;
+	private final BestSolutionHolder bestSolution;
+	private final AtomicReferenceArray<Solution> finalSolutionOfSearch;
+	private SplittableRandom[] randomOfSearch;
+	private SplittableRandom masterRandom;
+	private final ImprovementStream improvementStream;
+	private final Thread improvementReporter;
+	private double costsOfReportedSolution;
 	private volatile boolean stopped;
+	private long deadline;
+	private double lowerBoundOfCosts;
 	private final AtomicBoolean informedAboutSolvableSchedule;
-	private final ReentrantLock setSolutionLock;
 	private final ExecutorService executorService;
+	private final EliteBoard eliteBoard;
+	private final AtomicLongArray evaluationsOfEngine;
 
 	public ThreadsController(File file, UiController uiController) {
 		inputFile = file;
 		spreadsheetReader = new SpreadsheetReader(inputFile);
 		this.uiController = uiController;
 		this.inUIMode = uiController != null;
-		numberOfFinishedSolutions = 0;
-		outputHasBeenWritten = false;
-		bestSolution = null;
+		numberOfFinishedSolutions = new AtomicInteger(0);
+		outputHasBeenWritten = new AtomicBoolean(false);
+		bestSolution = new BestSolutionHolder();
+		finalSolutionOfSearch = new AtomicReferenceArray<>(Config.NUMBER_OF_PARALLEL_THREADS);
+		improvementStream = new ImprovementStream();
+		improvementReporter = new Thread(this::reportImprovements, "improvement reporter");
+		improvementReporter.setDaemon(true);
+		costsOfReportedSolution = Double.MAX_VALUE;
+		lowerBoundOfCosts = Config.OPTIMAL_SOLUTION;
 		stopped = false;
 		informedAboutSolvableSchedule = new AtomicBoolean(false);
-		setSolutionLock = new ReentrantLock();
 		executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		eliteBoard = new EliteBoard(Config.NUMBER_OF_PARALLEL_THREADS);
+		evaluationsOfEngine = new AtomicLongArray(Engine.values().length);
 	}
 
 	@Override
@@ -43,9 +72,15 @@ public class ThreadsController implements Runnable {
 			println("Error: The provided input file does not exist or is not a file");
 			finished();
 		} else {
+			deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Config.TIME_LIMIT);
 			try {
 				spreadsheetReader.run();
+				problemInstance = spreadsheetReader.getProblemInstance();
 				println("Input file has been read successfully, computing solutions...");
+				if (Config.LOWER_BOUND) {
+					lowerBoundOfCosts = new CostsLowerBound(problemInstance).calculate();
+					println("Lower bound of costs: " + lowerBoundOfCosts);
+				}
 				startSolutionThreads();
 			} catch (Exception exception) {
 				println("Error: " + exception.getMessage());
@@ -77,59 +112,264 @@ public class ThreadsController implements Runnable {
 	}
 
 	public boolean isStopped() {
+		return stopped || (hasTimeLimit() && System.nanoTime() - deadline >= 0);
+	}
+
+	/**
+	 * Returns whether the user has stopped the program, regardless of the time limit of the searches.
+	 */
+	public boolean isStoppedByUser() {
 		return stopped;
 	}
 
+	/**
+	 * Returns whether a search which has ended should start over from a new initial solution, which is the case until
+	 * the time limit is reached.
+	 */
+	public boolean canRestartSearch() {
+		return hasTimeLimit() && !isStopped();
+	}
+
 	public SpreadsheetReader getSpreadsheetReader() {
 		return spreadsheetReader;
 	}
 
-	public void setSolution(Solution solution) {
-		setSolutionLock.lock();
-		try {
-			if (isBetterSolution(solution)) {
-				bestSolution = solution;
-				println("Costs of solution: " + bestSolution.getCosts());
+	public ProblemInstance getProblemInstance() {
+		return problemInstance;
+	}
 
-				if (isOptimalSolution(solution)) {
-					stop();
-					numberOfFinishedSolutions = Config.NUMBER_OF_PARALLEL_THREADS;
-				}
-			}
-			numberOfFinishedSolutions++;
+	/**
+	 * Returns the costs below which no solution can get. A search whose best solution has reached them can stop, as
+	 * it can not be improved anymore.
+	 */
+	public double getLowerBoundOfCosts() {
+		return lowerBoundOfCosts;
+	}
 
-			if (shouldWriteOutput()) {
-				outputHasBeenWritten = true;
-				writeOutput();
-				finished();
-			}
-		} finally {
-			setSolutionLock.unlock();
+	public EliteBoard getEliteBoard() {
+		return eliteBoard;
+	}
+
+	/**
+	 * Returns the random generator of the search with the given index. With a seed, every search gets its own
+	 * generator split off from the seed, otherwise the one of the calling thread is returned. The generator may only be
+	 * used by one thread at a time.
+	 */
+	public RandomGenerator getRandomOfSearch(int search) {
+		return Config.IS_SEEDED ? randomOfSearch[search] : ThreadLocalRandom.current();
+	}
+
+	/**
+	 * Adds the moves evaluated by a run of the given engine, which are reported per engine when the output is written.
+	 */
+	public void addEvaluations(Engine engine, long numberOfEvaluations) {
+		evaluationsOfEngine.addAndGet(engine.ordinal(), numberOfEvaluations);
+	}
+
+	/**
+	 * Takes the final solution of the search with the given index.
+	 */
+	public void setSolution(int search, Solution solution) {
+		finalSolutionOfSearch.set(search, solution);
+		publishSolution(solution);
+		if (numberOfFinishedSolutions.incrementAndGet() >= Config.NUMBER_OF_PARALLEL_THREADS) {
+			writeOutputOnce();
 		}
 	}
 
-	private void startSolutionThreads() {
+	/**
+	 * Returns whether a solution with the given costs would become the best solution of all searches, so that a search
+	 * does not have to copy a solution for publishing which would not be taken anyway.
+	 */
+	public boolean isBetterThanBestSolution(double costs) {
+		Solution currentBestSolution = bestSolution.get();
+		return currentBestSolution == null || costs < currentBestSolution.getCosts();
+	}
+
+	/**
+	 * Takes a solution of a search which is not finished yet, e.g. a new best solution found by the search or the
+	 * solution of a search which starts over. The solution must not be changed anymore.
+	 */
+	public void publishSolution(Solution solution) {
+		if (!bestSolution.offer(solution)) {
+			return;
+		}
+		improvementStream.publish(solution);
+
+		if (!Config.IS_SEEDED && isTargetReached(solution)) {
+			stop();
+			writeOutputOnce();
+		}
+	}
+
+	private void startSolutionThreads() throws InterruptedException, ExecutionException {
+		Solution initialSolution = new ShiftMatching(this).run();
+		improvementReporter.start();
+
+		initializeRandoms();
+		if (Config.RACING) {
+			raceSolutions(initialSolution);
+			return;
+		}
+
 		for (int i = 0; i < Config.NUMBER_OF_PARALLEL_THREADS; i++) {
-			SolutionController solutionController = new SolutionController(this);
+			Engine engine = Engine.forSearch(Config.ENGINE, i);
+			SolutionController solutionController = Config.DIVERSIFY_INITIAL_SOLUTIONS && i > 0
+					? new SolutionController(this, i, getNextSeed(), engine)
+					: new SolutionController(this, i, initialSolution.createCopy(), engine);
 			executorService.submit(solutionController);
 		}
 	}
 
-	private boolean isBetterSolution(Solution solution) {
-		return bestSolution == null || solution.getCosts() < bestSolution.getCosts();
+	private void raceSolutions(Solution initialSolution) throws InterruptedException, ExecutionException {
+		List<Solution> initialSolutions = new ArrayList<>(Config.NUMBER_OF_PARALLEL_THREADS);
+		for (int i = 0; i < Config.NUMBER_OF_PARALLEL_THREADS; i++) {
+			initialSolutions.add(Config.DIVERSIFY_INITIAL_SOLUTIONS && i > 0
+					? new ShiftMatching(this, getNextSeed()).run()
+					: initialSolution.createCopy());
+		}
+
+		List<Solution> solutions = new SuccessiveHalvingRace(this, executorService).run(initialSolutions);
+		for (int i = 0; i < solutions.size(); i++) {
+			setSolution(i, solutions.get(i));
+		}
+	}
+
+	/**
+	 * Splits the generators of all searches off from the seed in a fixed order, so that every search gets the same
+	 * random numbers in every run with the same seed and number of searches.
+	 */
+	private void initializeRandoms() {
+		if (!Config.IS_SEEDED) {
+			return;
+		}
+		masterRandom = new SplittableRandom(Config.SEED);
+		randomOfSearch = new SplittableRandom[Config.NUMBER_OF_PARALLEL_THREADS];
+		for (int i = 0; i < randomOfSearch.length; i++) {
+			randomOfSearch[i] = masterRandom.split();
+		}
+	}
+
+	private long getNextSeed() {
+		return Config.IS_SEEDED ? masterRandom.nextLong() : ThreadLocalRandom.current().nextLong();
+	}
+
+	/**
+	 * Returns the solution to write. With a seed, this is the final solution with the lowest costs and among those the
+	 * one of the search with the lowest index, independent of the order in which the searches have finished.
+	 */
+	private Solution getSolutionToWrite() {
+		if (!Config.IS_SEEDED) {
+			return bestSolution.get();
+		}
+
+		Solution solutionToWrite = null;
+		for (int search = 0; search < finalSolutionOfSearch.length(); search++) {
+			Solution solution = finalSolutionOfSearch.get(search);
+			if (solution != null && (solutionToWrite == null || solution.getCosts() < solutionToWrite.getCosts())) {
+				solutionToWrite = solution;
+			}
+		}
+		return solutionToWrite != null ? solutionToWrite : bestSolution.get();
+	}
+
+	private void reportImprovements() {
+		try {
+			while (!outputHasBeenWritten.get()) {
+				reportImprovement(improvementStream.take());
+			}
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Reports all improvements which have not been reported yet, including the best solution in case improvements
+	 * have been dropped from the stream.
+	 */
+	private void reportPendingImprovements() {
+		for (Solution solution = improvementStream.poll(); solution != null; solution = improvementStream.poll()) {
+			reportImprovement(solution);
+		}
+		reportImprovement(bestSolution.get());
+	}
+
+	private synchronized void reportImprovement(Solution solution) {
+		if (solution != null && solution.getCosts() < costsOfReportedSolution) {
+			costsOfReportedSolution = solution.getCosts();
+			println("Costs of solution: " + solution.getCosts() + getDescriptionOfHighestCosts(solution));
+		}
+	}
+
+	private void writeOutputOnce() {
+		if (outputHasBeenWritten.compareAndSet(false, true)) {
+			// The reporter waits for improvements which will not come anymore, so it is ended
+			improvementReporter.interrupt();
+			reportPendingImprovements();
+			Solution solutionToWrite = getSolutionToWrite();
+			if (Config.EXACT_SEARCH && solutionToWrite != null && !isTargetReached(solutionToWrite)) {
+				solutionToWrite = searchExactly(solutionToWrite);
+			}
+			reportOptimalityGap(solutionToWrite);
+			reportEvaluations();
+			writeOutput(solutionToWrite);
+			finished();
+		}
+	}
+
+	private String getDescriptionOfHighestCosts(Solution solution) {
+		int employee = solution.getEmployeeWithHighestCosts();
+		if (employee == Config.MISSING_EMPLOYEE) {
+			return "";
+		}
+		int row = employee + Config.ROWS_OF_HEADER + 1;
+		return " (highest costs for employee in row " + row + ": " + solution.getCostsOfEmployee(employee) + ")";
+	}
+
+	/**
+	 * Searches all schedules for a better one than the given solution of the heuristic searches, falling back to the
+	 * given solution if the exhaustive search reaches its limit or is stopped without finding one.
+	 */
+	private Solution searchExactly(Solution solution) {
+		println("Searching exhaustively for a better solution...");
+		BranchAndBound branchAndBound = new BranchAndBound(this);
+		Solution exactSolution = branchAndBound.run(solution);
+		reportImprovement(exactSolution);
+		println(branchAndBound.isFinished() ? "No better solution exists"
+				: isStoppedByUser() ? "The exhaustive search has been stopped"
+						: "The exhaustive search has reached its limit");
+		return exactSolution;
+	}
+
+	private void reportOptimalityGap(Solution solution) {
+		if (!Config.LOWER_BOUND || solution == null) {
+			return;
+		}
+		double gap = solution.getCosts() - lowerBoundOfCosts;
+		println(gap <= 0 ? "The solution is optimal" : "Gap to lower bound of costs: " + gap);
+	}
+
+	private void reportEvaluations() {
+		for (Engine engine : Engine.values()) {
+			long numberOfEvaluations = evaluationsOfEngine.get(engine.ordinal());
+			if (numberOfEvaluations > 0) {
+				println("Evaluated moves of " + engine.getNameInSetting() + ": " + numberOfEvaluations);
+			}
+		}
 	}
 
-	private boolean isOptimalSolution(Solution solution) {
-		return solution.getCosts() == Config.OPTIMAL_SOLUTION;
+	private boolean isTargetReached(Solution solution) {
+		return solution.getCosts() <= Config.TARGET_COSTS
+				|| (Config.LOWER_BOUND && solution.getCosts() <= lowerBoundOfCosts);
 	}
 
-	private boolean shouldWriteOutput() {
-		return !outputHasBeenWritten && numberOfFinishedSolutions >= Config.NUMBER_OF_PARALLEL_THREADS;
+	private boolean hasTimeLimit() {
+		return Config.TIME_LIMIT > 0;
 	}
 
-	private void writeOutput() {
+	private void writeOutput(Solution solution) {
 		try {
-			new SpreadsheetWriter(bestSolution, this).run();
+			new SpreadsheetWriter(solution, this).run();
 		} catch (Exception exception) {
 			println("Error: " + exception.getMessage());
 		}
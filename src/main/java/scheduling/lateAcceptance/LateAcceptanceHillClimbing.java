@@ -0,0 +1,85 @@
+package scheduling.lateAcceptance;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import scheduling.common.Config;
+import scheduling.common.ImprovementEngine;
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
+import scheduling.common.ThreadsController;
+import scheduling.tabuSearch.Move;
+import scheduling.tabuSearch.MoveSampler;
+import scheduling.tabuSearch.MoveValidator;
+
+/**
+ * Evaluates a single random move per step and accepts it if it is not worse than the current solution or than the
+ * current solution a fixed number of steps ago. The costs of the past solutions are kept in a circular array.
+ */
+public class LateAcceptanceHillClimbing implements ImprovementEngine {
+	private final ThreadsController threadsController;
+	private final RandomGenerator random;
+	private final ProblemInstance problemInstance;
+	private final MoveValidator moveValidator;
+	private final MoveSampler moveSampler;
+	private final Move move;
+	private final int maxStepsWithoutImprovement;
+	private final double[] costsOfPastSolutions;
+	private long numberOfEvaluations;
+
+	/**
+	 * Creates a search which ends after the given share of the configured steps without improvement and samples its
+	 * moves with the given random generator.
+	 */
+	public LateAcceptanceHillClimbing(ThreadsController threadsController, double shareOfBudget, RandomGenerator random) {
+		this.maxStepsWithoutImprovement = Math.max(1, (int) (Config.MAX_STEPS_WITHOUT_IMPROVEMENT * shareOfBudget));
+		this.threadsController = threadsController;
+		this.random = random;
+		this.problemInstance = threadsController.getProblemInstance();
+		this.moveValidator = new MoveValidator(problemInstance);
+		this.moveSampler = new MoveSampler(problemInstance, moveValidator, Config.EXTENDED_MOVES);
+		this.move = new Move(problemInstance.getLengthOfMonth());
+		this.costsOfPastSolutions = new double[Config.LATE_ACCEPTANCE_LENGTH];
+	}
+
+	@Override
+	public Solution run(Solution initialSolution) {
+		Solution bestSolution = initialSolution;
+		Solution currentSolution = bestSolution.createCopy();
+		Arrays.fill(costsOfPastSolutions, currentSolution.getCosts());
+		int stepsWithoutImprovement = 0;
+		int step = 0;
+
+		while (stepsWithoutImprovement < maxStepsWithoutImprovement && !isSearchFinished(bestSolution)) {
+			stepsWithoutImprovement++;
+			int indexOfPastSolution = step;
+			step = (step + 1) % costsOfPastSolutions.length;
+
+			long movableDays = moveValidator.getMovableDays(currentSolution);
+			if (moveSampler.sample(currentSolution, movableDays, random, move)) {
+				double costs = move.getCostsAfterMove(currentSolution);
+				numberOfEvaluations++;
+
+				if (costs <= costsOfPastSolutions[indexOfPastSolution] || costs <= currentSolution.getCosts()) {
+					move.applyTo(currentSolution, problemInstance);
+					if (currentSolution.getCosts() < bestSolution.getCosts()) {
+						bestSolution = currentSolution.createCopy();
+						threadsController.publishSolution(bestSolution);
+						stepsWithoutImprovement = 0;
+					}
+				}
+			}
+			costsOfPastSolutions[indexOfPastSolution] = currentSolution.getCosts();
+		}
+		return bestSolution;
+	}
+
+	@Override
+	public long getNumberOfEvaluations() {
+		return numberOfEvaluations;
+	}
+
+	private boolean isSearchFinished(Solution bestSolution) {
+		return threadsController.isStopped() || bestSolution.getCosts() <= threadsController.getLowerBoundOfCosts();
+	}
+}
@@ -0,0 +1,336 @@
+package scheduling.matching;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
+
+/**
+ * Computes the same maximum weight assignment of shifts to days as the graph based matching, but on primitive arrays.
+ * All shifts of an employee with the same weight are interchangeable, so every employee is represented by two nodes
+ * only: one for the shifts preferred on free days and one for all remaining shifts. The assignment is found as a
+ * minimum cost flow with successive shortest paths, which stops as soon as a further shift would not increase the
+ * total weight anymore.
+ * <p>
+ * For a repair, only the days of a window are assigned again and the employees keep their number of shifts and of
+ * free days inside it. The weights then break ties by the costs an employee causes on a day, so that the cheapest
+ * assignment with the same weight is found.
+ */
+class ShiftAssignment {
+	private static final int SOURCE = 0;
+	private static final int SINK = 1;
+	private static final int FIRST_EMPLOYEE_NODE = 2;
+	private static final int NOISE_RESOLUTION = 1024;
+	private static final long INFINITE_DISTANCE = Long.MAX_VALUE;
+	private static final int COSTS_RESOLUTION = 16;
+
+	private final ProblemInstance problemInstance;
+	private final int lengthOfMonth;
+	private final int firstDayNode;
+	private final int numberOfNodes;
+	private final long costsScale;
+	private final int[] headOfNode;
+	private final int[] nextEdge;
+	private final int[] targetOfEdge;
+	private final int[] capacityOfEdge;
+	private final long[] costOfEdge;
+	private final long[] potential;
+	private final long[] distance;
+	private final int[] previousEdge;
+	private final boolean[] isVisited;
+	private int numberOfEdges;
+	private int numberOfShifts;
+	private boolean isPerfect;
+
+	private SplittableRandom random;
+	private long daysToAssign;
+	private int[] employeeOnDay;
+	private int[] shiftsOfEmployee;
+	private int[] shiftsOnFreeDaysOfEmployee;
+	private double[][] costsOfEmployeeOnDay;
+	private long weightScale;
+
+	ShiftAssignment(ProblemInstance problemInstance, SplittableRandom random) {
+		this(problemInstance);
+		this.random = random;
+		this.daysToAssign = problemInstance.getDaysOfMonth();
+		this.shiftsOfEmployee = getShiftsOfEmployees(problemInstance);
+		this.shiftsOnFreeDaysOfEmployee = getShiftsOnFreeDaysOfEmployees(problemInstance);
+		this.weightScale = random == null ? 1 : costsScale;
+	}
+
+	/**
+	 * Creates an assignment for repairs, which can be run for one window after another without allocating the network
+	 * again.
+	 */
+	ShiftAssignment(ProblemInstance problemInstance) {
+		this.problemInstance = problemInstance;
+		this.lengthOfMonth = problemInstance.getLengthOfMonth();
+		this.firstDayNode = FIRST_EMPLOYEE_NODE + 2 * Config.NUMBER_OF_EMPLOYEES;
+		this.numberOfNodes = firstDayNode + lengthOfMonth;
+		this.costsScale = (long) (lengthOfMonth + 1) * NOISE_RESOLUTION;
+
+		int maxNumberOfEdges = 2 * (2 * Config.NUMBER_OF_EMPLOYEES * (lengthOfMonth + 1) + lengthOfMonth);
+		this.headOfNode = new int[numberOfNodes];
+		this.nextEdge = new int[maxNumberOfEdges];
+		this.targetOfEdge = new int[maxNumberOfEdges];
+		this.capacityOfEdge = new int[maxNumberOfEdges];
+		this.costOfEdge = new long[maxNumberOfEdges];
+		this.potential = new long[numberOfNodes];
+		this.distance = new long[numberOfNodes];
+		this.previousEdge = new int[numberOfNodes];
+		this.isVisited = new boolean[numberOfNodes];
+	}
+
+	int[] run() {
+		return run(new int[lengthOfMonth]);
+	}
+
+	/**
+	 * Assigns the given days of a solution again and writes the repaired solution into the given array. The employees
+	 * get the given numbers of shifts and of shifts on free days inside the window, and every assignment of an employee
+	 * to a day is weighted down by the given costs.
+	 */
+	int[] repair(SplittableRandom random, long daysToAssign, int[] employeeOnDay, int[] shiftsOfEmployee,
+			int[] shiftsOnFreeDaysOfEmployee, double[][] costsOfEmployeeOnDay, int[] solution) {
+		this.random = random;
+		this.daysToAssign = daysToAssign;
+		this.employeeOnDay = employeeOnDay;
+		this.shiftsOfEmployee = shiftsOfEmployee;
+		this.shiftsOnFreeDaysOfEmployee = shiftsOnFreeDaysOfEmployee;
+		this.costsOfEmployeeOnDay = costsOfEmployeeOnDay;
+		this.weightScale = getWeightScaleForRepair();
+		return run(solution);
+	}
+
+	private int[] run(int[] solution) {
+		buildNetwork();
+		initializePotentials();
+
+		int numberOfAssignedDays = 0;
+		while (findShortestPath() && potential[SINK] < 0) {
+			augmentShortestPath();
+			numberOfAssignedDays++;
+		}
+		int numberOfDaysToAssign = Long.bitCount(daysToAssign);
+		isPerfect = numberOfAssignedDays == numberOfDaysToAssign && numberOfShifts == numberOfDaysToAssign;
+		return getSolution(solution);
+	}
+
+	boolean isPerfect() {
+		return isPerfect;
+	}
+
+	private void buildNetwork() {
+		Arrays.fill(headOfNode, -1);
+		numberOfEdges = 0;
+		numberOfShifts = 0;
+
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			int shifts = shiftsOfEmployee[employee];
+			int shiftsOnFreeDays = shiftsOnFreeDaysOfEmployee[employee];
+			numberOfShifts += shifts;
+
+			addEmployeeNode(employee, getNodeForShiftsOnFreeDays(employee), shiftsOnFreeDays, Config.WEIGHT_FOR_FREE_DAY);
+			addEmployeeNode(employee, getNodeForShiftsOnFreeDays(employee) + 1, shifts - shiftsOnFreeDays,
+					Config.WEIGHT_FOR_NORMAL_DAY);
+		}
+
+		for (int day = 0; day < lengthOfMonth; day++) {
+			if (isDayToAssign(day)) {
+				addEdge(firstDayNode + day, SINK, 1, 0);
+			}
+		}
+	}
+
+	private static int[] getShiftsOfEmployees(ProblemInstance problemInstance) {
+		int[] shiftsOfEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			shiftsOfEmployee[employee] = Math.max(0, problemInstance.getDaysToWorkInTotalForEmployee(employee));
+		}
+		return shiftsOfEmployee;
+	}
+
+	private static int[] getShiftsOnFreeDaysOfEmployees(ProblemInstance problemInstance) {
+		int[] shiftsOnFreeDaysOfEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			// Like the graph matching, every shift whose number is below the days to work at free days is weighted
+			shiftsOnFreeDaysOfEmployee[employee] = Math.min(Math.max(0,
+					problemInstance.getDaysToWorkInTotalForEmployee(employee)),
+					(int) Math.max(0, Math.ceil(problemInstance.getDaysToWorkAtFreeDayForEmployee(employee))));
+		}
+		return shiftsOnFreeDaysOfEmployee;
+	}
+
+	private boolean isDayToAssign(int day) {
+		return (daysToAssign & (1L << day)) != 0;
+	}
+
+	private void addEmployeeNode(int employee, int node, int shifts, int weightForFreeDay) {
+		if (shifts == 0) {
+			return;
+		}
+		addEdge(SOURCE, node, shifts, 0);
+
+		for (int day = 0; day < lengthOfMonth; day++) {
+			if (!isDayToAssign(day) || !problemInstance.isEmployeeAvailableOnDay(employee, day)) {
+				continue;
+			}
+
+			int fixedEmployee = problemInstance.getEmployeeOnFixedDay(day);
+			if (fixedEmployee != Config.MISSING_EMPLOYEE && fixedEmployee != employee) {
+				continue;
+			}
+			addEdge(node, firstDayNode + day, 1, -getScaledEdgeWeight(weightForFreeDay, day, employee));
+		}
+	}
+
+	private long getScaledEdgeWeight(int weightForFreeDay, int day, int employee) {
+		int edgeWeight = problemInstance.isFreeDay(day) ? weightForFreeDay : Config.WEIGHT_FOR_NORMAL_DAY;
+		edgeWeight = problemInstance.getEmployeeOnFixedDay(day) == employee
+				? edgeWeight + Config.WEIGHT_FOR_FIXED_DAY
+				: edgeWeight;
+		// The noise of all assigned days sums up to less than one unscaled weight, so it only breaks ties
+		long noise = random == null ? 0 : random.nextInt(NOISE_RESOLUTION);
+		long costs = costsOfEmployeeOnDay == null ? 0 : getScaledCosts(employee, day) * costsScale;
+		return edgeWeight * weightScale + noise - costs;
+	}
+
+	private long getScaledCosts(int employee, int day) {
+		return Math.round(costsOfEmployeeOnDay[employee][day] * COSTS_RESOLUTION);
+	}
+
+	/**
+	 * Scales the weights of a repair so that the costs of all assigned days sum up to less than one unscaled weight,
+	 * while the noise still sums up to less than one unit of the costs.
+	 */
+	private long getWeightScaleForRepair() {
+		long maxScaledCosts = 0;
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			for (int day = 0; day < lengthOfMonth; day++) {
+				maxScaledCosts = Math.max(maxScaledCosts, Math.abs(getScaledCosts(employee, day)));
+			}
+		}
+		return costsScale * (2 * maxScaledCosts + 1) * (lengthOfMonth + 1);
+	}
+
+	private void addEdge(int from, int to, int capacity, long cost) {
+		addDirectedEdge(from, to, capacity, cost);
+		addDirectedEdge(to, from, 0, -cost);
+	}
+
+	private void addDirectedEdge(int from, int to, int capacity, long cost) {
+		targetOfEdge[numberOfEdges] = to;
+		capacityOfEdge[numberOfEdges] = capacity;
+		costOfEdge[numberOfEdges] = cost;
+		nextEdge[numberOfEdges] = headOfNode[from];
+		headOfNode[from] = numberOfEdges;
+		numberOfEdges++;
+	}
+
+	/**
+	 * The initial network has no cycles, so the shortest distances from the source are found in one pass over its
+	 * layers. They make all reduced costs non-negative, which allows Dijkstra's algorithm afterwards.
+	 */
+	private void initializePotentials() {
+		Arrays.fill(potential, 0);
+		long shortestDistanceToSink = 0;
+
+		for (int node = FIRST_EMPLOYEE_NODE; node < firstDayNode; node++) {
+			for (int edge = headOfNode[node]; edge != -1; edge = nextEdge[edge]) {
+				if (capacityOfEdge[edge] > 0 && costOfEdge[edge] < potential[targetOfEdge[edge]]) {
+					potential[targetOfEdge[edge]] = costOfEdge[edge];
+				}
+			}
+		}
+
+		for (int day = 0; day < lengthOfMonth; day++) {
+			shortestDistanceToSink = Math.min(shortestDistanceToSink, potential[firstDayNode + day]);
+		}
+		potential[SINK] = shortestDistanceToSink;
+	}
+
+	private boolean findShortestPath() {
+		Arrays.fill(distance, INFINITE_DISTANCE);
+		Arrays.fill(isVisited, false);
+		distance[SOURCE] = 0;
+
+		for (int iteration = 0; iteration < numberOfNodes; iteration++) {
+			int node = getClosestUnvisitedNode();
+			if (node == -1) {
+				break;
+			}
+			isVisited[node] = true;
+
+			for (int edge = headOfNode[node]; edge != -1; edge = nextEdge[edge]) {
+				int target = targetOfEdge[edge];
+				if (capacityOfEdge[edge] == 0 || isVisited[target]) {
+					continue;
+				}
+				long reducedDistance = distance[node] + costOfEdge[edge] + potential[node] - potential[target];
+				if (reducedDistance < distance[target]) {
+					distance[target] = reducedDistance;
+					previousEdge[target] = edge;
+				}
+			}
+		}
+
+		if (distance[SINK] == INFINITE_DISTANCE) {
+			return false;
+		}
+
+		for (int node = 0; node < numberOfNodes; node++) {
+			if (distance[node] != INFINITE_DISTANCE) {
+				potential[node] += distance[node];
+			}
+		}
+		return true;
+	}
+
+	private int getClosestUnvisitedNode() {
+		int closestNode = -1;
+		for (int node = 0; node < numberOfNodes; node++) {
+			if (!isVisited[node] && distance[node] != INFINITE_DISTANCE
+					&& (closestNode == -1 || distance[node] < distance[closestNode])) {
+				closestNode = node;
+			}
+		}
+		return closestNode;
+	}
+
+	private void augmentShortestPath() {
+		for (int node = SINK; node != SOURCE; node = targetOfEdge[previousEdge[node] ^ 1]) {
+			int edge = previousEdge[node];
+			capacityOfEdge[edge]--;
+			capacityOfEdge[edge ^ 1]++;
+		}
+	}
+
+	private int[] getSolution(int[] solution) {
+		if (employeeOnDay != null) {
+			System.arraycopy(employeeOnDay, 0, solution, 0, lengthOfMonth);
+		} else {
+			Arrays.fill(solution, Config.MISSING_EMPLOYEE);
+		}
+
+		for (int node = FIRST_EMPLOYEE_NODE; node < firstDayNode; node++) {
+			for (int edge = headOfNode[node]; edge != -1; edge = nextEdge[edge]) {
+				boolean isForwardEdge = (edge & 1) == 0;
+				int target = targetOfEdge[edge];
+				if (isForwardEdge && target >= firstDayNode && capacityOfEdge[edge] == 0) {
+					solution[target - firstDayNode] = getEmployeeOfNode(node);
+				}
+			}
+		}
+		return solution;
+	}
+
+	private static int getNodeForShiftsOnFreeDays(int employee) {
+		return FIRST_EMPLOYEE_NODE + 2 * employee;
+	}
+
+	private static int getEmployeeOfNode(int node) {
+		return (node - FIRST_EMPLOYEE_NODE) / 2;
+	}
+}
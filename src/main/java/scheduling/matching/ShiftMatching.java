@@ -3,6 +3,7 @@ package scheduling.matching;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 import org.jgrapht.Graph;
 import org.jgrapht.alg.interfaces.MatchingAlgorithm.Matching;
@@ -11,10 +12,10 @@ import org.jgrapht.graph.DefaultWeightedEdge;
 import org.jgrapht.graph.builder.GraphTypeBuilder;
 
 import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
 import scheduling.common.SolutionCostMapper;
 import scheduling.common.ThreadsController;
 import scheduling.common.Solution;
-import scheduling.spreadsheet.SpreadsheetReader;
 
 public class ShiftMatching {
 
@@ -23,19 +24,64 @@ public class ShiftMatching {
 	private final Set<Vertex> daysSet;
 	private final Set<Vertex> employeesSet;
 	private final Day[] days;
-	private final SpreadsheetReader spreadsheetReader;
+	private final ProblemInstance problemInstance;
+	private final SplittableRandom random;
+	private boolean isPerfect;
 
 	public ShiftMatching(ThreadsController threadsController) {
+		this(threadsController, threadsController.getProblemInstance(), null);
+	}
+
+	/**
+	 * Creates a matching which breaks ties between equally weighted matchings randomly, so that different seeds lead
+	 * to different initial solutions of the same quality.
+	 */
+	public ShiftMatching(ThreadsController threadsController, long seed) {
+		this(threadsController, threadsController.getProblemInstance(), new SplittableRandom(seed));
+	}
+
+	/**
+	 * Creates a matching of the given constraints which does not report the solvability of the schedule.
+	 */
+	ShiftMatching(ProblemInstance problemInstance) {
+		this(null, problemInstance, null);
+	}
+
+	private ShiftMatching(ThreadsController threadsController, ProblemInstance problemInstance,
+			SplittableRandom random) {
 		this.threadsController = threadsController;
+		this.random = random;
 		graph = GraphTypeBuilder.undirected().allowingMultipleEdges(false).allowingSelfLoops(false)
 				.edgeClass(DefaultWeightedEdge.class).vertexClass(Vertex.class).weighted(true).buildGraph();
 		daysSet = new HashSet<>();
 		employeesSet = new HashSet<>();
-		this.spreadsheetReader = threadsController.getSpreadsheetReader();
-		days = new Day[spreadsheetReader.getLengthOfMonth()];
+		this.problemInstance = problemInstance;
+		days = new Day[problemInstance.getLengthOfMonth()];
 	}
 
 	public Solution run() {
+		Solution solution = Config.ARRAY_BASED_MATCHING ? runShiftAssignment() : runGraphMatching();
+		if (threadsController != null) {
+			threadsController.informAboutSolvabilityOfSchedule(isPerfect);
+		}
+		return solution;
+	}
+
+	/**
+	 * Returns whether the last matching has assigned every day and every shift.
+	 */
+	boolean isPerfect() {
+		return isPerfect;
+	}
+
+	Solution runShiftAssignment() {
+		ShiftAssignment shiftAssignment = new ShiftAssignment(problemInstance, random);
+		int[] solution = shiftAssignment.run();
+		isPerfect = shiftAssignment.isPerfect();
+		return createSolution(solution);
+	}
+
+	Solution runGraphMatching() {
 		addDaysToGraph();
 		addEmployeesToGraph();
 		Set<DefaultWeightedEdge> matchingResult = performMatching();
@@ -57,8 +103,8 @@ public class ShiftMatching {
 	}
 
 	private void addEmployeeToGraph(int employee) {
-		for (int shiftNumber = 0; shiftNumber < Math
-				.floor(spreadsheetReader.getDaysToWorkInTotalForEmployee(employee)); shiftNumber++) {
+		for (int shiftNumber = 0; shiftNumber < problemInstance.getDaysToWorkInTotalForEmployee(employee);
+				shiftNumber++) {
 			Shift shift = new Shift(employee, shiftNumber);
 			employeesSet.add(shift);
 			graph.addVertex(shift);
@@ -69,47 +115,53 @@ public class ShiftMatching {
 	private void addEdgesForShift(Shift shift, int employee, int shiftNumber) {
 		int weightForFreeDay = getWeightForFreeDay(shiftNumber, employee);
 		for (int day = 0; day < days.length; day++) {
-			if (!spreadsheetReader.isEmployeeAvailableOnDay(employee, day)) {
+			if (!problemInstance.isEmployeeAvailableOnDay(employee, day)) {
 				continue;
 			}
 
-			int fixedEmployee = spreadsheetReader.getEmployeeOnFixedDay(day);
+			int fixedEmployee = problemInstance.getEmployeeOnFixedDay(day);
 			if (fixedEmployee != Config.MISSING_EMPLOYEE && fixedEmployee != employee) {
 				continue;
 			}
 			int edgeWeight = getEdgeWeight(weightForFreeDay, day, employee);
 			graph.addEdge(shift, days[day]);
-			graph.setEdgeWeight(shift, days[day], edgeWeight);
+			graph.setEdgeWeight(shift, days[day], edgeWeight + getTieBreakingNoise());
 		}
 	}
 
 	private int getWeightForFreeDay(int shiftNumber, int employee) {
-		return shiftNumber < spreadsheetReader.getDaysToWorkAtFreeDayForEmployee(employee)
+		return shiftNumber < problemInstance.getDaysToWorkAtFreeDayForEmployee(employee)
 				? Config.WEIGHT_FOR_FREE_DAY
 				: Config.WEIGHT_FOR_NORMAL_DAY;
 	}
 
 	private int getEdgeWeight(int weightForFreeDay, int day, int employee) {
-		int edgeWeight = spreadsheetReader.isFreeDay(day) ? weightForFreeDay : Config.WEIGHT_FOR_NORMAL_DAY;
-		edgeWeight = spreadsheetReader.getEmployeeOnFixedDay(day) == employee
+		int edgeWeight = problemInstance.isFreeDay(day) ? weightForFreeDay : Config.WEIGHT_FOR_NORMAL_DAY;
+		edgeWeight = problemInstance.getEmployeeOnFixedDay(day) == employee
 				? edgeWeight + Config.WEIGHT_FOR_FIXED_DAY
 				: edgeWeight;
 		return edgeWeight;
 	}
 
+	private double getTieBreakingNoise() {
+		if (random == null) {
+			return 0;
+		}
+		// The noise of all matched edges sums up to less than one and can never outweigh a real weight difference
+		return random.nextDouble() / (days.length + 1);
+	}
+
 	private Set<DefaultWeightedEdge> performMatching() {
 		MaximumWeightBipartiteMatching<Vertex, DefaultWeightedEdge> matching = new MaximumWeightBipartiteMatching<>(
 				graph, employeesSet, daysSet);
 
 		Matching<Vertex, DefaultWeightedEdge> result = matching.getMatching();
-
-		threadsController.informAboutSolvabilityOfSchedule(result.isPerfect());
-
+		isPerfect = result.isPerfect();
 		return result.getEdges();
 	}
 
 	private Solution getSolutionFromMatching(Set<DefaultWeightedEdge> matchingResult) {
-		int[] solution = new int[spreadsheetReader.getLengthOfMonth()];
+		int[] solution = new int[problemInstance.getLengthOfMonth()];
 		Arrays.fill(solution, Config.MISSING_EMPLOYEE);
 
 		matchingResult.forEach(edge -> {
@@ -119,17 +171,20 @@ public class ShiftMatching {
 			int dayNumber = day.dayNumber();
 			solution[dayNumber] = employee;
 		});
+		return createSolution(solution);
+	}
 
+	private Solution createSolution(int[] solution) {
 		int[] numberOfFreeDaysForEmployee = getNumberOfFreeDaysForEmployee(solution);
-		return new Solution(solution, numberOfFreeDaysForEmployee, spreadsheetReader,
-				new SolutionCostMapper(spreadsheetReader));
+		return new Solution(solution, numberOfFreeDaysForEmployee, problemInstance,
+				new SolutionCostMapper(problemInstance));
 	}
 
 	private int[] getNumberOfFreeDaysForEmployee(int[] solution) {
 		int[] numberOfFreeDaysForEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
 
-		for (int day = 0; day < spreadsheetReader.getLengthOfMonth(); day++) {
-			if (spreadsheetReader.isFreeDay(day)) {
+		for (int day = 0; day < problemInstance.getLengthOfMonth(); day++) {
+			if (problemInstance.isFreeDay(day)) {
 				if (solution[day] != Config.MISSING_EMPLOYEE) {
 					numberOfFreeDaysForEmployee[solution[day]]++;
 				}
@@ -0,0 +1,134 @@
+package scheduling.matching;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
+import scheduling.common.SolutionCostMapper;
+
+/**
+ * Takes the employees off a window of days and assigns them again with the shift assignment restricted to these days.
+ * Every employee keeps the number of days and of free days it works inside the window, so the repaired schedule keeps
+ * the rules of the initial one. Days without employee and fixed days are never part of a window. The assignment
+ * prefers the days on which an employee causes the lowest costs, given the other days it works. As these depend on
+ * the assignment itself, it is repeated for some rounds and the cheapest result is kept.
+ */
+public class WindowRepair {
+	private final ProblemInstance problemInstance;
+	private final SolutionCostMapper solutionCostMapper;
+	private final ShiftAssignment shiftAssignment;
+	private final long fixedDays;
+	private final int[] employeeOnDay;
+	private final int[] currentEmployeeOnDay;
+	private final int[] bestEmployeeOnDay;
+	private final int[] shiftsOfEmployee;
+	private final int[] shiftsOnFreeDaysOfEmployee;
+	private final double[][] costsOfEmployeeOnDay;
+	private final long[] workingDaysOfEmployee;
+	private final int[] days;
+	private final int[] employees;
+
+	/**
+	 * Creates a repair which keeps its buffers from one window to the next, so it must not be shared between threads.
+	 */
+	public WindowRepair(ProblemInstance problemInstance) {
+		this.problemInstance = problemInstance;
+		this.solutionCostMapper = new SolutionCostMapper(problemInstance);
+		this.shiftAssignment = new ShiftAssignment(problemInstance);
+
+		long allFixedDays = 0;
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			allFixedDays |= problemInstance.getFixedDaysOfEmployee(employee);
+		}
+		this.fixedDays = allFixedDays;
+
+		int lengthOfMonth = problemInstance.getLengthOfMonth();
+		this.employeeOnDay = new int[lengthOfMonth];
+		this.currentEmployeeOnDay = new int[lengthOfMonth];
+		this.bestEmployeeOnDay = new int[lengthOfMonth];
+		this.shiftsOfEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.shiftsOnFreeDaysOfEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
+		this.costsOfEmployeeOnDay = new double[Config.NUMBER_OF_EMPLOYEES][lengthOfMonth];
+		this.workingDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+		this.days = new int[lengthOfMonth];
+		this.employees = new int[lengthOfMonth];
+	}
+
+	/**
+	 * Returns the employees of all days after repairing the given window, or null if less than two of its days can be
+	 * assigned again or no repair is cheaper than the solution. The solution is not modified. The returned array is
+	 * overwritten by the next repair.
+	 */
+	public int[] repair(Solution solution, long window, SplittableRandom random) {
+		long daysToAssign = window & problemInstance.getDaysOfMonth() & ~solution.getDaysWithoutEmployee() & ~fixedDays;
+		if (Long.bitCount(daysToAssign) < 2) {
+			return null;
+		}
+
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			employeeOnDay[day] = solution.getEmployeeForDay(day);
+		}
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			long daysInWindow = solution.getWorkingDaysOfEmployee(employee) & daysToAssign;
+			shiftsOfEmployee[employee] = Long.bitCount(daysInWindow);
+			shiftsOnFreeDaysOfEmployee[employee] = Long.bitCount(daysInWindow & problemInstance.getFreeDays());
+		}
+
+		boolean isRepaired = false;
+		double bestCosts = solution.getCosts();
+		System.arraycopy(employeeOnDay, 0, currentEmployeeOnDay, 0, employeeOnDay.length);
+		for (int round = 0; round < Config.ROUNDS_OF_REPAIR; round++) {
+			calculateCostsOfEmployees(solution.getDaysWithoutEmployee(), daysToAssign);
+			shiftAssignment.repair(random, daysToAssign, employeeOnDay, shiftsOfEmployee, shiftsOnFreeDaysOfEmployee,
+					costsOfEmployeeOnDay, currentEmployeeOnDay);
+			if (!shiftAssignment.isPerfect()) {
+				break;
+			}
+
+			int numberOfDays = 0;
+			for (long remainingDays = daysToAssign; remainingDays != 0; remainingDays &= remainingDays - 1) {
+				days[numberOfDays] = Long.numberOfTrailingZeros(remainingDays);
+				employees[numberOfDays] = currentEmployeeOnDay[days[numberOfDays]];
+				numberOfDays++;
+			}
+			double costs = solution.getCostsOfAssignment(days, employees, numberOfDays);
+			if (costs < bestCosts) {
+				bestCosts = costs;
+				System.arraycopy(currentEmployeeOnDay, 0, bestEmployeeOnDay, 0, currentEmployeeOnDay.length);
+				isRepaired = true;
+			}
+		}
+		return isRepaired ? bestEmployeeOnDay : null;
+	}
+
+	/**
+	 * Calculates the costs an employee who works in the window would cause by working on a day of the window, given
+	 * all other days the employee works in the current schedule. Every round of a repair takes the schedule of the
+	 * round before, so that the employees see the days they have got inside the window meanwhile.
+	 */
+	private void calculateCostsOfEmployees(long daysWithoutEmployee, long daysToAssign) {
+		Arrays.fill(workingDaysOfEmployee, 0);
+		for (int day = 0; day < currentEmployeeOnDay.length; day++) {
+			if (currentEmployeeOnDay[day] != Config.MISSING_EMPLOYEE) {
+				workingDaysOfEmployee[currentEmployeeOnDay[day]] |= 1L << day;
+			}
+		}
+
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			// Costs of other employees and days are left from earlier repairs, but they must not scale the weights
+			Arrays.fill(costsOfEmployeeOnDay[employee], 0);
+			if (shiftsOfEmployee[employee] == 0) {
+				continue;
+			}
+			for (long remainingDays = daysToAssign; remainingDays != 0; remainingDays &= remainingDays - 1) {
+				int day = Long.numberOfTrailingZeros(remainingDays);
+				long otherDays = workingDaysOfEmployee[employee] & ~(1L << day);
+				costsOfEmployeeOnDay[employee][day] = solutionCostMapper.calculateCostsOfEmployee(employee,
+						otherDays | (1L << day), daysWithoutEmployee)
+						- solutionCostMapper.calculateCostsOfEmployee(employee, otherDays, daysWithoutEmployee);
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package scheduling.simulatedAnnealing;
+
+import java.util.random.RandomGenerator;
+
+import scheduling.common.Config;
+import scheduling.common.ImprovementEngine;
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
+import scheduling.common.ThreadsController;
+import scheduling.tabuSearch.Move;
+import scheduling.tabuSearch.MoveSampler;
+import scheduling.tabuSearch.MoveValidator;
+
+/**
+ * Evaluates a single random move per step and accepts a worse solution with a probability which decreases with the
+ * temperature. The initial temperature accepts an average deterioration of the initial solution with a fixed
+ * probability. The temperature decreases geometrically and is reset to the initial temperature at the best solution
+ * found so far once it has become negligible.
+ */
+public class SimulatedAnnealing implements ImprovementEngine {
+	private final ThreadsController threadsController;
+	private final RandomGenerator random;
+	private final ProblemInstance problemInstance;
+	private final MoveValidator moveValidator;
+	private final MoveSampler moveSampler;
+	private final Move move;
+	private final int maxStepsWithoutImprovement;
+	private long numberOfEvaluations;
+
+	/**
+	 * Creates a search which ends after the given share of the configured steps without improvement. The random
+	 * generator is used for sampling moves and for accepting worse ones.
+	 */
+	public SimulatedAnnealing(ThreadsController threadsController, double shareOfBudget, RandomGenerator random) {
+		this.maxStepsWithoutImprovement = Math.max(1, (int) (Config.MAX_STEPS_WITHOUT_IMPROVEMENT * shareOfBudget));
+		this.threadsController = threadsController;
+		this.random = random;
+		this.problemInstance = threadsController.getProblemInstance();
+		this.moveValidator = new MoveValidator(problemInstance);
+		this.moveSampler = new MoveSampler(problemInstance, moveValidator, Config.EXTENDED_MOVES);
+		this.move = new Move(problemInstance.getLengthOfMonth());
+	}
+
+	@Override
+	public Solution run(Solution initialSolution) {
+		Solution bestSolution = initialSolution;
+		Solution currentSolution = bestSolution.createCopy();
+		double initialTemperature = calculateInitialTemperature(currentSolution);
+		double minTemperature = initialTemperature * Config.FINAL_TEMPERATURE_RATIO;
+		double coolingFactor = Math.pow(Config.FINAL_TEMPERATURE_RATIO,
+				(double) Config.COOLING_CYCLES_PER_SEARCH / maxStepsWithoutImprovement);
+		double temperature = initialTemperature;
+		int stepsWithoutImprovement = 0;
+
+		while (stepsWithoutImprovement < maxStepsWithoutImprovement && !isSearchFinished(bestSolution)) {
+			stepsWithoutImprovement++;
+			temperature *= coolingFactor;
+			if (temperature < minTemperature) {
+				temperature = initialTemperature;
+				currentSolution = bestSolution.createCopy();
+			}
+
+			long movableDays = moveValidator.getMovableDays(currentSolution);
+			if (!moveSampler.sample(currentSolution, movableDays, random, move)) continue;
+
+			double costsDelta = move.getCostsAfterMove(currentSolution) - currentSolution.getCosts();
+			numberOfEvaluations++;
+			if (costsDelta > 0 && random.nextDouble() >= Math.exp(-costsDelta / temperature)) continue;
+
+			move.applyTo(currentSolution, problemInstance);
+			if (currentSolution.getCosts() < bestSolution.getCosts()) {
+				bestSolution = currentSolution.createCopy();
+				threadsController.publishSolution(bestSolution);
+				stepsWithoutImprovement = 0;
+			}
+		}
+		return bestSolution;
+	}
+
+	@Override
+	public long getNumberOfEvaluations() {
+		return numberOfEvaluations;
+	}
+
+	private double calculateInitialTemperature(Solution solution) {
+		long movableDays = moveValidator.getMovableDays(solution);
+		double sumOfDeteriorations = 0;
+		int numberOfDeteriorations = 0;
+
+		for (int i = 0; i < Config.SAMPLES_FOR_INITIAL_TEMPERATURE; i++) {
+			if (!moveSampler.sample(solution, movableDays, random, move)) continue;
+
+			double costsDelta = move.getCostsAfterMove(solution) - solution.getCosts();
+			numberOfEvaluations++;
+			if (costsDelta > 0) {
+				sumOfDeteriorations += costsDelta;
+				numberOfDeteriorations++;
+			}
+		}
+
+		if (numberOfDeteriorations == 0) {
+			return 1;
+		}
+		return -(sumOfDeteriorations / numberOfDeteriorations) / Math.log(Config.INITIAL_ACCEPTANCE_PROBABILITY);
+	}
+
+	private boolean isSearchFinished(Solution bestSolution) {
+		return threadsController.isStopped() || bestSolution.getCosts() <= threadsController.getLowerBoundOfCosts();
+	}
+}
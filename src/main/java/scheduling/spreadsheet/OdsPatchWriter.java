@@ -0,0 +1,288 @@
+package scheduling.spreadsheet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Writes the schedule into a copy of the input file without loading the document model. All entries of the archive are
+ * copied byte by byte in their compressed form, only content.xml is decompressed, patched as a stream and compressed
+ * again. A template is turned into a spreadsheet by rewriting its media type as well.
+ */
+public class OdsPatchWriter {
+	private static final String MIMETYPE_ENTRY = "mimetype";
+	private static final String MANIFEST_ENTRY = "META-INF/manifest.xml";
+	private static final String SPREADSHEET_MEDIA_TYPE = "application/vnd.oasis.opendocument.spreadsheet";
+	private static final String TEMPLATE_MEDIA_TYPE = SPREADSHEET_MEDIA_TYPE + "-template";
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private static final int LOCAL_HEADER_LENGTH = 30;
+	private static final int CENTRAL_HEADER_LENGTH = 46;
+	private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+	private static final int MAX_COMMENT_LENGTH = 0xffff;
+	private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+	private static final long ZIP64_MARKER = 0xffffffffL;
+
+	private final File input;
+
+	public OdsPatchWriter(File input) {
+		this.input = Objects.requireNonNull(input, "Input file must not be null");
+	}
+
+	public void write(File outputFile, String[][] schedule) throws IOException {
+		ByteBuffer archive = ByteBuffer.wrap(Files.readAllBytes(input.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+		List<Entry> entries = readCentralDirectory(archive);
+		ByteArrayOutputStream output = new ByteArrayOutputStream(archive.capacity());
+
+		for (Entry entry : entries) {
+			entry.newLocalHeaderOffset = output.size();
+			byte[] patchedData = getPatchedData(archive, entry, schedule);
+
+			if (patchedData == null) {
+				writeLocalHeader(output, entry);
+				output.write(archive.array(), getOffsetOfData(archive, entry), (int) entry.compressedSize);
+			} else {
+				writePatchedEntry(output, entry, patchedData);
+			}
+		}
+
+		int offsetOfCentralDirectory = output.size();
+		for (Entry entry : entries) {
+			writeCentralHeader(output, entry);
+		}
+		writeEndOfCentralDirectory(output, entries.size(), output.size() - offsetOfCentralDirectory,
+				offsetOfCentralDirectory);
+
+		try (OutputStream stream = Files.newOutputStream(outputFile.toPath())) {
+			output.writeTo(stream);
+		}
+	}
+
+	private byte[] getPatchedData(ByteBuffer archive, Entry entry, String[][] schedule) throws IOException {
+		switch (entry.name) {
+			case OdsStreamingReader.CONTENT_ENTRY -> {
+				ByteArrayOutputStream content = new ByteArrayOutputStream();
+				try (InputStream data = openEntry(archive, entry)) {
+					new ScheduleContentPatcher(schedule).patch(data, content);
+				} catch (XMLStreamException exception) {
+					throw new IOException("The input file is not a valid spreadsheet: " + exception.getMessage(),
+							exception);
+				}
+				return content.toByteArray();
+			}
+			case MIMETYPE_ENTRY, MANIFEST_ENTRY -> {
+				byte[] data;
+				try (InputStream stream = openEntry(archive, entry)) {
+					data = stream.readAllBytes();
+				}
+				String text = new String(data, StandardCharsets.UTF_8);
+				return text.contains(TEMPLATE_MEDIA_TYPE)
+						? text.replace(TEMPLATE_MEDIA_TYPE, SPREADSHEET_MEDIA_TYPE).getBytes(StandardCharsets.UTF_8)
+						: null;
+			}
+			default -> {
+				return null;
+			}
+		}
+	}
+
+	private InputStream openEntry(ByteBuffer archive, Entry entry) throws IOException {
+		InputStream data = new ByteArrayInputStream(archive.array(), getOffsetOfData(archive, entry),
+				(int) entry.compressedSize);
+		return switch (entry.method) {
+			case STORED -> data;
+			case DEFLATED -> new InflaterInputStream(data, new Inflater(true));
+			default -> throw new IOException("Unsupported compression of " + entry.name + " in the input file");
+		};
+	}
+
+	private void writePatchedEntry(ByteArrayOutputStream output, Entry entry, byte[] data) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		entry.crc = crc.getValue();
+		entry.uncompressedSize = data.length;
+
+		if (entry.method == STORED) {
+			entry.compressedSize = data.length;
+			writeLocalHeader(output, entry);
+			output.write(data);
+			return;
+		}
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4);
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try (DeflaterOutputStream stream = new DeflaterOutputStream(compressed, deflater)) {
+			stream.write(data);
+		} finally {
+			deflater.end();
+		}
+		entry.compressedSize = compressed.size();
+		writeLocalHeader(output, entry);
+		compressed.writeTo(output);
+	}
+
+	private static List<Entry> readCentralDirectory(ByteBuffer archive) throws IOException {
+		int endOfCentralDirectory = findEndOfCentralDirectory(archive);
+		int numberOfEntries = Short.toUnsignedInt(archive.getShort(endOfCentralDirectory + 10));
+		long offset = Integer.toUnsignedLong(archive.getInt(endOfCentralDirectory + 16));
+		if (numberOfEntries == 0xffff || offset == ZIP64_MARKER) {
+			throw new IOException("The input file is too large to be patched");
+		}
+
+		List<Entry> entries = new ArrayList<>(numberOfEntries);
+		int position = (int) offset;
+		for (int index = 0; index < numberOfEntries; index++) {
+			if (archive.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+				throw new IOException("The input file has a corrupt central directory");
+			}
+			Entry entry = new Entry(archive, position);
+			if (entry.compressedSize == ZIP64_MARKER || entry.localHeaderOffset == ZIP64_MARKER) {
+				throw new IOException("The input file is too large to be patched");
+			}
+			entries.add(entry);
+			position += CENTRAL_HEADER_LENGTH + Short.toUnsignedInt(archive.getShort(position + 28))
+					+ Short.toUnsignedInt(archive.getShort(position + 30))
+					+ Short.toUnsignedInt(archive.getShort(position + 32));
+		}
+		return entries;
+	}
+
+	private static int findEndOfCentralDirectory(ByteBuffer archive) throws IOException {
+		int lastPossiblePosition = archive.capacity() - END_OF_CENTRAL_DIRECTORY_LENGTH;
+		int firstPossiblePosition = Math.max(0, lastPossiblePosition - MAX_COMMENT_LENGTH);
+
+		for (int position = lastPossiblePosition; position >= firstPossiblePosition; position--) {
+			if (archive.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				return position;
+			}
+		}
+		throw new IOException("The input file is not a valid spreadsheet");
+	}
+
+	private static int getOffsetOfData(ByteBuffer archive, Entry entry) throws IOException {
+		int localHeader = (int) entry.localHeaderOffset;
+		if (archive.getInt(localHeader) != LOCAL_HEADER_SIGNATURE) {
+			throw new IOException("The input file has a corrupt entry " + entry.name);
+		}
+		return localHeader + LOCAL_HEADER_LENGTH + Short.toUnsignedInt(archive.getShort(localHeader + 26))
+				+ Short.toUnsignedInt(archive.getShort(localHeader + 28));
+	}
+
+	/**
+	 * The sizes are always known in advance, so the local header never needs a trailing data descriptor. Extra fields
+	 * are dropped in the local as well as in the central header.
+	 */
+	private static void writeLocalHeader(ByteArrayOutputStream output, Entry entry) {
+		writeInt(output, LOCAL_HEADER_SIGNATURE);
+		writeShort(output, entry.versionNeeded);
+		writeShort(output, entry.flags & ~DATA_DESCRIPTOR_FLAG);
+		writeShort(output, entry.method);
+		writeShort(output, entry.time);
+		writeShort(output, entry.date);
+		writeInt(output, entry.crc);
+		writeInt(output, entry.compressedSize);
+		writeInt(output, entry.uncompressedSize);
+		writeShort(output, entry.rawName.length);
+		writeShort(output, 0);
+		output.writeBytes(entry.rawName);
+	}
+
+	private static void writeCentralHeader(ByteArrayOutputStream output, Entry entry) {
+		writeInt(output, CENTRAL_HEADER_SIGNATURE);
+		writeShort(output, entry.versionMadeBy);
+		writeShort(output, entry.versionNeeded);
+		writeShort(output, entry.flags & ~DATA_DESCRIPTOR_FLAG);
+		writeShort(output, entry.method);
+		writeShort(output, entry.time);
+		writeShort(output, entry.date);
+		writeInt(output, entry.crc);
+		writeInt(output, entry.compressedSize);
+		writeInt(output, entry.uncompressedSize);
+		writeShort(output, entry.rawName.length);
+		writeShort(output, 0);
+		writeShort(output, 0);
+		writeShort(output, 0);
+		writeShort(output, entry.internalAttributes);
+		writeInt(output, entry.externalAttributes);
+		writeInt(output, entry.newLocalHeaderOffset);
+		output.writeBytes(entry.rawName);
+	}
+
+	private static void writeEndOfCentralDirectory(ByteArrayOutputStream output, int numberOfEntries,
+			int sizeOfCentralDirectory, int offsetOfCentralDirectory) {
+		writeInt(output, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+		writeShort(output, 0);
+		writeShort(output, 0);
+		writeShort(output, numberOfEntries);
+		writeShort(output, numberOfEntries);
+		writeInt(output, sizeOfCentralDirectory);
+		writeInt(output, offsetOfCentralDirectory);
+		writeShort(output, 0);
+	}
+
+	private static void writeShort(ByteArrayOutputStream output, int value) {
+		output.write(value & 0xff);
+		output.write((value >>> 8) & 0xff);
+	}
+
+	private static void writeInt(ByteArrayOutputStream output, long value) {
+		writeShort(output, (int) (value & 0xffff));
+		writeShort(output, (int) ((value >>> 16) & 0xffff));
+	}
+
+	private static class Entry {
+		private final int versionMadeBy;
+		private final int versionNeeded;
+		private final int flags;
+		private final int time;
+		private final int date;
+		private final int internalAttributes;
+		private final long externalAttributes;
+		private final long localHeaderOffset;
+		private final byte[] rawName;
+		private final String name;
+		private int method;
+		private long crc;
+		private long compressedSize;
+		private long uncompressedSize;
+		private long newLocalHeaderOffset;
+
+		private Entry(ByteBuffer archive, int position) {
+			this.versionMadeBy = Short.toUnsignedInt(archive.getShort(position + 4));
+			this.versionNeeded = Short.toUnsignedInt(archive.getShort(position + 6));
+			this.flags = Short.toUnsignedInt(archive.getShort(position + 8));
+			this.method = Short.toUnsignedInt(archive.getShort(position + 10));
+			this.time = Short.toUnsignedInt(archive.getShort(position + 12));
+			this.date = Short.toUnsignedInt(archive.getShort(position + 14));
+			this.crc = Integer.toUnsignedLong(archive.getInt(position + 16));
+			this.compressedSize = Integer.toUnsignedLong(archive.getInt(position + 20));
+			this.uncompressedSize = Integer.toUnsignedLong(archive.getInt(position + 24));
+			this.internalAttributes = Short.toUnsignedInt(archive.getShort(position + 36));
+			this.externalAttributes = Integer.toUnsignedLong(archive.getInt(position + 38));
+			this.localHeaderOffset = Integer.toUnsignedLong(archive.getInt(position + 42));
+			this.rawName = new byte[Short.toUnsignedInt(archive.getShort(position + 28))];
+			archive.get(position + CENTRAL_HEADER_LENGTH, rawName);
+			this.name = new String(rawName, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,326 @@
+package scheduling.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import scheduling.common.Config;
+
+/**
+ * Reads the snapshot of the first sheet directly from the XML entries of an ODS file. Only the cell styles and the
+ * area of the snapshot are parsed, everything behind it and all further sheets are skipped.
+ */
+public class OdsStreamingReader {
+	static final String CONTENT_ENTRY = "content.xml";
+	static final String TABLE_NAMESPACE = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+	static final String OFFICE_NAMESPACE = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+	static final String TEXT_NAMESPACE = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+	private static final String STYLES_ENTRY = "styles.xml";
+	private static final String STYLE_NAMESPACE = "urn:oasis:names:tc:opendocument:xmlns:style:1.0";
+	private static final String FO_NAMESPACE = "urn:oasis:names:tc:opendocument:xmlns:xsl-fo-compatible:1.0";
+	private static final String TRANSPARENT = "transparent";
+	private static final int NUMBER_OF_COLUMNS = SpreadsheetSnapshot.getColumnIndex(SpreadsheetSnapshot.LAST_COLUMN) + 1;
+
+	private final File input;
+	private final Map<String, String> backgroundColorOfStyle;
+	private final Map<String, String> parentOfStyle;
+	private final Object[][] values;
+	private final String[][] styles;
+	private final String[] defaultStyleOfColumn;
+
+	public OdsStreamingReader(File input) {
+		this.input = Objects.requireNonNull(input, "Input file must not be null");
+		this.backgroundColorOfStyle = new HashMap<>();
+		this.parentOfStyle = new HashMap<>();
+		this.values = new Object[SpreadsheetSnapshot.LAST_ROW][NUMBER_OF_COLUMNS];
+		this.styles = new String[SpreadsheetSnapshot.LAST_ROW][NUMBER_OF_COLUMNS];
+		this.defaultStyleOfColumn = new String[NUMBER_OF_COLUMNS];
+	}
+
+	public SpreadsheetSnapshot read() throws IOException {
+		try (ZipFile zipFile = new ZipFile(input)) {
+			readStyles(zipFile);
+			readContent(zipFile);
+		} catch (XMLStreamException exception) {
+			throw new IOException("The input file is not a valid spreadsheet: " + exception.getMessage(), exception);
+		}
+		return new SpreadsheetSnapshot(values, getBackgroundColorsInSchedule());
+	}
+
+	static XMLInputFactory createXmlInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	private static XMLStreamReader createXmlReader(InputStream inputStream) throws XMLStreamException {
+		return createXmlInputFactory().createXMLStreamReader(inputStream);
+	}
+
+	private static int getIntAttribute(XMLStreamReader reader, String name, int defaultValue) {
+		String value = reader.getAttributeValue(TABLE_NAMESPACE, name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	private void readStyles(ZipFile zipFile) throws IOException, XMLStreamException {
+		ZipEntry entry = zipFile.getEntry(STYLES_ENTRY);
+		if (entry == null) {
+			return;
+		}
+		try (InputStream inputStream = zipFile.getInputStream(entry)) {
+			XMLStreamReader reader = createXmlReader(inputStream);
+			String currentStyle = null;
+
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+					currentStyle = readStyleElement(reader, currentStyle);
+				}
+			}
+			reader.close();
+		}
+	}
+
+	private void readContent(ZipFile zipFile) throws IOException, XMLStreamException {
+		ZipEntry entry = zipFile.getEntry(CONTENT_ENTRY);
+		if (entry == null) {
+			throw new IOException("The input file does not contain " + CONTENT_ENTRY);
+		}
+		try (InputStream inputStream = zipFile.getInputStream(entry)) {
+			XMLStreamReader reader = createXmlReader(inputStream);
+			String currentStyle = null;
+
+			while (reader.hasNext()) {
+				if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+					continue;
+				}
+				if (isElement(reader, TABLE_NAMESPACE, "table")) {
+					readFirstSheet(reader);
+					break;
+				}
+				currentStyle = readStyleElement(reader, currentStyle);
+			}
+			reader.close();
+		}
+	}
+
+	private String readStyleElement(XMLStreamReader reader, String currentStyle) {
+		if (isElement(reader, STYLE_NAMESPACE, "style")) {
+			String name = reader.getAttributeValue(STYLE_NAMESPACE, "name");
+			String parent = reader.getAttributeValue(STYLE_NAMESPACE, "parent-style-name");
+			if (parent != null) {
+				parentOfStyle.put(name, parent);
+			}
+			return name;
+		}
+		if (isElement(reader, STYLE_NAMESPACE, "table-cell-properties") && currentStyle != null) {
+			String backgroundColor = reader.getAttributeValue(FO_NAMESPACE, "background-color");
+			if (backgroundColor != null) {
+				backgroundColorOfStyle.put(currentStyle, backgroundColor);
+			}
+		}
+		return currentStyle;
+	}
+
+	private void readFirstSheet(XMLStreamReader reader) throws XMLStreamException {
+		int column = 0;
+		int row = 0;
+
+		while (reader.hasNext() && row < SpreadsheetSnapshot.LAST_ROW) {
+			int event = reader.next();
+
+			if (event == XMLStreamConstants.END_ELEMENT && isElement(reader, TABLE_NAMESPACE, "table")) {
+				return;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+
+			if (isElement(reader, TABLE_NAMESPACE, "table-column")) {
+				column = readColumn(reader, column);
+			} else if (isElement(reader, TABLE_NAMESPACE, "table-row")) {
+				row = readRow(reader, row);
+			}
+		}
+	}
+
+	private int readColumn(XMLStreamReader reader, int column) {
+		int repeated = getIntAttribute(reader, "number-columns-repeated", 1);
+		String defaultStyle = reader.getAttributeValue(TABLE_NAMESPACE, "default-cell-style-name");
+
+		for (int index = column; index < Math.min(column + repeated, NUMBER_OF_COLUMNS); index++) {
+			defaultStyleOfColumn[index] = defaultStyle;
+		}
+		return column + repeated;
+	}
+
+	private int readRow(XMLStreamReader reader, int row) throws XMLStreamException {
+		int repeated = getIntAttribute(reader, "number-rows-repeated", 1);
+		String defaultStyleOfRow = reader.getAttributeValue(TABLE_NAMESPACE, "default-cell-style-name");
+		int column = 0;
+
+		while (reader.hasNext()) {
+			int event = reader.next();
+
+			if (event == XMLStreamConstants.END_ELEMENT && isElement(reader, TABLE_NAMESPACE, "table-row")) {
+				break;
+			}
+			if (event == XMLStreamConstants.START_ELEMENT && (isElement(reader, TABLE_NAMESPACE, "table-cell")
+					|| isElement(reader, TABLE_NAMESPACE, "covered-table-cell"))) {
+				column = readCell(reader, row, column, defaultStyleOfRow);
+			}
+		}
+
+		for (int copy = 1; copy < repeated && row + copy < SpreadsheetSnapshot.LAST_ROW; copy++) {
+			values[row + copy] = Arrays.copyOf(values[row], NUMBER_OF_COLUMNS);
+			styles[row + copy] = Arrays.copyOf(styles[row], NUMBER_OF_COLUMNS);
+		}
+		return row + repeated;
+	}
+
+	private int readCell(XMLStreamReader reader, int row, int column, String defaultStyleOfRow)
+			throws XMLStreamException {
+		boolean isCovered = isElement(reader, TABLE_NAMESPACE, "covered-table-cell");
+		int repeated = getIntAttribute(reader, "number-columns-repeated", 1);
+		int spannedColumns = getIntAttribute(reader, "number-columns-spanned", 1);
+		int spannedRows = getIntAttribute(reader, "number-rows-spanned", 1);
+		String style = reader.getAttributeValue(TABLE_NAMESPACE, "style-name");
+		style = style != null ? style : defaultStyleOfRow;
+		String valueType = reader.getAttributeValue(OFFICE_NAMESPACE, "value-type");
+		String rawValue = getRawValue(reader, valueType);
+		Object value = parseValue(valueType, rawValue != null ? rawValue : readText(reader));
+
+		for (int index = column; index < Math.min(column + repeated, NUMBER_OF_COLUMNS); index++) {
+			styles[row][index] = style != null ? style : defaultStyleOfColumn[index];
+			if (!isCovered) {
+				setMergedValue(value, row, index, spannedRows, spannedColumns);
+			}
+		}
+		return column + repeated;
+	}
+
+	/**
+	 * Merged cells show the value of their first cell in the whole merged area, so the covered cells get the same
+	 * value as the cell covering them.
+	 */
+	private void setMergedValue(Object value, int row, int column, int spannedRows, int spannedColumns) {
+		for (int mergedRow = row; mergedRow < Math.min(row + spannedRows, SpreadsheetSnapshot.LAST_ROW); mergedRow++) {
+			for (int mergedColumn = column; mergedColumn < Math.min(column + spannedColumns, NUMBER_OF_COLUMNS);
+					mergedColumn++) {
+				values[mergedRow][mergedColumn] = value;
+			}
+		}
+	}
+
+	private static String getRawValue(XMLStreamReader reader, String valueType) {
+		if (valueType == null) {
+			return null;
+		}
+		return switch (valueType) {
+			case "float", "percentage", "currency" -> reader.getAttributeValue(OFFICE_NAMESPACE, "value");
+			case "date" -> reader.getAttributeValue(OFFICE_NAMESPACE, "date-value");
+			case "time" -> reader.getAttributeValue(OFFICE_NAMESPACE, "time-value");
+			case "boolean" -> reader.getAttributeValue(OFFICE_NAMESPACE, "boolean-value");
+			default -> reader.getAttributeValue(OFFICE_NAMESPACE, "string-value");
+		};
+	}
+
+	private static Object parseValue(String valueType, String rawValue) {
+		if (valueType == null || rawValue == null) {
+			return null;
+		}
+		return switch (valueType) {
+			case "float", "percentage", "currency" -> Double.parseDouble(rawValue);
+			case "date" -> rawValue.contains("T") ? LocalDateTime.parse(rawValue) : LocalDate.parse(rawValue);
+			case "time" -> Duration.parse(rawValue);
+			case "boolean" -> Boolean.parseBoolean(rawValue);
+			default -> rawValue;
+		};
+	}
+
+	/**
+	 * Collects the text of all paragraphs of the current cell and leaves the reader at the end of the cell. Comments
+	 * are not part of the value of a cell, so the paragraphs inside an annotation are skipped.
+	 */
+	private static String readText(XMLStreamReader reader) throws XMLStreamException {
+		StringBuilder text = new StringBuilder();
+		int depth = 1;
+		int depthOfAnnotation = 0;
+		int paragraphs = 0;
+
+		while (depth > 0 && reader.hasNext()) {
+			int event = reader.next();
+
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				if (depthOfAnnotation > 0) {
+					continue;
+				}
+				if (isElement(reader, OFFICE_NAMESPACE, "annotation")) {
+					depthOfAnnotation = depth;
+				} else if (isElement(reader, TEXT_NAMESPACE, "p") && paragraphs++ > 0) {
+					text.append('\n');
+				} else if (isElement(reader, TEXT_NAMESPACE, "s")) {
+					text.append(" ".repeat(Math.max(1, getTextIntAttribute(reader, "c"))));
+				} else if (isElement(reader, TEXT_NAMESPACE, "tab")) {
+					text.append('\t');
+				} else if (isElement(reader, TEXT_NAMESPACE, "line-break")) {
+					text.append('\n');
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (depth == depthOfAnnotation) {
+					depthOfAnnotation = 0;
+				}
+				depth--;
+			} else if (event == XMLStreamConstants.CHARACTERS && paragraphs > 0 && depthOfAnnotation == 0) {
+				text.append(reader.getText());
+			}
+		}
+		return paragraphs > 0 ? text.toString() : null;
+	}
+
+	private static int getTextIntAttribute(XMLStreamReader reader, String name) {
+		String value = reader.getAttributeValue(TEXT_NAMESPACE, name);
+		return value == null ? 1 : Integer.parseInt(value);
+	}
+
+	private boolean[][] getBackgroundColorsInSchedule() {
+		boolean[][] hasBackgroundColor = new boolean[Config.NUMBER_OF_EMPLOYEES][SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH];
+
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			for (int day = 0; day < SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH; day++) {
+				String style = styles[SpreadsheetSnapshot.FIRST_ROW_OF_SCHEDULE - 1 + employee][SpreadsheetSnapshot.FIRST_COLUMN_OF_SCHEDULE + day];
+				hasBackgroundColor[employee][day] = hasBackgroundColor(style);
+			}
+		}
+		return hasBackgroundColor;
+	}
+
+	private boolean hasBackgroundColor(String style) {
+		for (String current = style; current != null; current = parentOfStyle.get(current)) {
+			String backgroundColor = backgroundColorOfStyle.get(current);
+			if (backgroundColor != null) {
+				return !TRANSPARENT.equals(backgroundColor);
+			}
+		}
+		return false;
+	}
+
+	private static boolean isElement(XMLStreamReader reader, String namespace, String localName) {
+		return localName.equals(reader.getLocalName()) && namespace.equals(reader.getNamespaceURI());
+	}
+}
@@ -0,0 +1,177 @@
+package scheduling.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
+
+/**
+ * Stores the compiled constraints of an input file in a compact binary file, whose name is the SHA-256 hash of the
+ * content of the input. As long as the input is unchanged, it is loaded from the cache by mapping the binary file into
+ * memory instead of parsing the spreadsheet again.
+ */
+public class ProblemInstanceCache {
+	private static final int MAGIC_NUMBER = 0x53434831;
+	private static final int FORMAT_VERSION = 2;
+	private static final Path CACHE_DIRECTORY = Path.of(".cache", "scheduling");
+	private static final String EXTENSION = ".bin";
+	private static final int DOUBLES_PER_EMPLOYEE = 5;
+	private static final int HEADER_LENGTH = 4 * Integer.BYTES + 2 * Long.BYTES;
+
+	private final Path cacheFile;
+
+	public ProblemInstanceCache(File input) throws IOException {
+		Objects.requireNonNull(input, "Input file must not be null");
+		Path directory = Path.of(System.getProperty("user.home")).resolve(CACHE_DIRECTORY);
+		this.cacheFile = directory.resolve(calculateHash(input.toPath()) + EXTENSION);
+	}
+
+	/**
+	 * Returns the cached constraints of the input or null if there are none or they have been written by an
+	 * incompatible version.
+	 */
+	public ProblemInstance load() {
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(buffer);
+		} catch (IOException | RuntimeException exception) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the constraints into the cache. A failure only means that the next run parses the input again, so it is
+	 * ignored, but the temporary file is removed, so that failed attempts do not pile up in the cache.
+	 */
+	public void store(ProblemInstance problemInstance) {
+		ByteBuffer buffer = write(problemInstance);
+		Path temporaryFile = null;
+		try {
+			Files.createDirectories(cacheFile.getParent());
+			temporaryFile = Files.createTempFile(cacheFile.getParent(), null, EXTENSION);
+			try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+			Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			temporaryFile = null;
+		} catch (IOException exception) {
+			// The cache is only an optimization
+		} finally {
+			deleteQuietly(temporaryFile);
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException exception) {
+			// Nothing else can be done
+		}
+	}
+
+	private static ProblemInstance read(ByteBuffer buffer) {
+		if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != FORMAT_VERSION
+				|| buffer.getInt() != Config.NUMBER_OF_EMPLOYEES) {
+			return null;
+		}
+		int lengthOfMonth = buffer.getInt();
+		long freeDays = buffer.getLong();
+		long singleShiftForbiddenDays = buffer.getLong();
+
+		int[] fixedEmployeeOnDay = new int[lengthOfMonth];
+		buffer.asIntBuffer().get(fixedEmployeeOnDay);
+		buffer.position(buffer.position() + lengthOfMonth * Integer.BYTES);
+
+		long[] availableDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+		buffer.asLongBuffer().get(availableDaysOfEmployee);
+		buffer.position(buffer.position() + Config.NUMBER_OF_EMPLOYEES * Long.BYTES);
+
+		int[] daysToWorkInTotal = new int[Config.NUMBER_OF_EMPLOYEES];
+		buffer.asIntBuffer().get(daysToWorkInTotal);
+		buffer.position(buffer.position() + Config.NUMBER_OF_EMPLOYEES * Integer.BYTES);
+
+		double[][] limits = new double[DOUBLES_PER_EMPLOYEE][Config.NUMBER_OF_EMPLOYEES];
+		for (double[] limit : limits) {
+			buffer.asDoubleBuffer().get(limit);
+			buffer.position(buffer.position() + Config.NUMBER_OF_EMPLOYEES * Double.BYTES);
+		}
+
+		return new ProblemInstance(lengthOfMonth, freeDays, singleShiftForbiddenDays, fixedEmployeeOnDay,
+				availableDaysOfEmployee, limits[0], limits[1], limits[2], daysToWorkInTotal, limits[3], limits[4]);
+	}
+
+	private static ByteBuffer write(ProblemInstance problemInstance) {
+		int lengthOfMonth = problemInstance.getLengthOfMonth();
+		int numberOfEmployees = Config.NUMBER_OF_EMPLOYEES;
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + lengthOfMonth * Integer.BYTES
+				+ numberOfEmployees * (Long.BYTES + Integer.BYTES + DOUBLES_PER_EMPLOYEE * Double.BYTES));
+
+		buffer.putInt(MAGIC_NUMBER).putInt(FORMAT_VERSION).putInt(numberOfEmployees).putInt(lengthOfMonth);
+		buffer.putLong(problemInstance.getFreeDays()).putLong(problemInstance.getSingleShiftForbiddenDays());
+		for (int day = 0; day < lengthOfMonth; day++) {
+			buffer.putInt(problemInstance.getEmployeeOnFixedDay(day));
+		}
+		for (int employee = 0; employee < numberOfEmployees; employee++) {
+			buffer.putLong(problemInstance.getAvailableDaysOfEmployee(employee));
+		}
+		for (int employee = 0; employee < numberOfEmployees; employee++) {
+			buffer.putInt(problemInstance.getDaysToWorkInTotalForEmployee(employee));
+		}
+		for (int employee = 0; employee < numberOfEmployees; employee++) {
+			buffer.putDouble(problemInstance.getMaxLengthOfShiftPerEmployee(employee));
+		}
+		for (int employee = 0; employee < numberOfEmployees; employee++) {
+			buffer.putDouble(problemInstance.getWishedLengthOfShiftForEmployee(employee));
+		}
+		for (int employee = 0; employee < numberOfEmployees; employee++) {
+			buffer.putDouble(problemInstance.getAdditionalFreeDaysBetweenShifts(employee));
+		}
+		for (int employee = 0; employee < numberOfEmployees; employee++) {
+			buffer.putDouble(problemInstance.getDaysToWorkAtFreeDayForEmployee(employee));
+		}
+		for (int employee = 0; employee < numberOfEmployees; employee++) {
+			buffer.putDouble(problemInstance.getExpectedDaysBetweenShiftsForEmployee(employee));
+		}
+		return buffer.flip();
+	}
+
+	/**
+	 * Hashes the input as a stream. Mapping it into memory would keep it locked on Windows until the mapping is
+	 * collected, so that it could not be edited while the program runs.
+	 */
+	private static String calculateHash(Path input) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException exception) {
+			throw new IllegalStateException("SHA-256 is not available", exception);
+		}
+		try (InputStream stream = new DigestInputStream(Files.newInputStream(input), digest)) {
+			stream.transferTo(OutputStream.nullOutputStream());
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+}
@@ -0,0 +1,277 @@
+package scheduling.spreadsheet;
+
+import static scheduling.spreadsheet.OdsStreamingReader.OFFICE_NAMESPACE;
+import static scheduling.spreadsheet.OdsStreamingReader.TABLE_NAMESPACE;
+import static scheduling.spreadsheet.OdsStreamingReader.TEXT_NAMESPACE;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import scheduling.common.Config;
+
+/**
+ * Copies the content.xml of an ODS file event by event and replaces only the cells of the schedule in the first sheet.
+ * Repeated rows and cells which overlap the schedule are split, so that all other cells keep their values and styles.
+ */
+class ScheduleContentPatcher {
+	private static final String CALC_EXTENSION_NAMESPACE = "urn:org:documentfoundation:names:experimental:calc:xmlns:calcext:1.0";
+	private static final QName ROWS_REPEATED = new QName(TABLE_NAMESPACE, "number-rows-repeated", "table");
+	private static final QName COLUMNS_REPEATED = new QName(TABLE_NAMESPACE, "number-columns-repeated", "table");
+	private static final QName VALUE_TYPE = new QName(OFFICE_NAMESPACE, "value-type", "office");
+	private static final Set<QName> VALUE_ATTRIBUTES = Set.of(COLUMNS_REPEATED, VALUE_TYPE,
+			new QName(OFFICE_NAMESPACE, "value"), new QName(OFFICE_NAMESPACE, "date-value"),
+			new QName(OFFICE_NAMESPACE, "time-value"), new QName(OFFICE_NAMESPACE, "boolean-value"),
+			new QName(OFFICE_NAMESPACE, "string-value"), new QName(OFFICE_NAMESPACE, "currency"),
+			new QName(TABLE_NAMESPACE, "formula"), new QName(CALC_EXTENSION_NAMESPACE, "value-type"));
+	private static final int FIRST_ROW = SpreadsheetSnapshot.FIRST_ROW_OF_SCHEDULE - 1;
+	private static final int END_ROW = Config.LAST_ROW_OF_SCHEDULE;
+	private static final int FIRST_COLUMN = SpreadsheetSnapshot.FIRST_COLUMN_OF_SCHEDULE;
+	private static final int END_COLUMN = FIRST_COLUMN + SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH;
+
+	private final String[][] schedule;
+	private final XMLEventFactory eventFactory;
+	private XMLEventWriter writer;
+	private int row;
+
+	ScheduleContentPatcher(String[][] schedule) {
+		this.schedule = schedule;
+		this.eventFactory = XMLEventFactory.newInstance();
+	}
+
+	void patch(InputStream content, OutputStream patchedContent) throws XMLStreamException {
+		XMLEventReader reader = OdsStreamingReader.createXmlInputFactory().createXMLEventReader(content);
+		writer = XMLOutputFactory.newInstance().createXMLEventWriter(patchedContent, "UTF-8");
+		boolean hasReachedFirstSheet = false;
+		boolean isInFirstSheet = false;
+		row = 0;
+
+		while (reader.hasNext()) {
+			XMLEvent event = reader.nextEvent();
+
+			if (!hasReachedFirstSheet && isStartOf(event, "table")) {
+				hasReachedFirstSheet = true;
+				isInFirstSheet = true;
+			} else if (isInFirstSheet && isStartOf(event, "table-row")) {
+				patchRow(readElement(reader, event));
+				continue;
+			} else if (isInFirstSheet && event.isEndElement() && isTableElement(event.asEndElement().getName(), "table")) {
+				addMissingRows();
+				isInFirstSheet = false;
+			}
+			writer.add(event);
+		}
+		writer.close();
+		reader.close();
+	}
+
+	private void patchRow(List<XMLEvent> events) throws XMLStreamException {
+		int repeated = getRepeated(events.get(0).asStartElement(), ROWS_REPEATED);
+		int firstPatchedRow = Math.max(row, FIRST_ROW);
+		int endOfPatchedRows = Math.min(row + repeated, END_ROW);
+
+		if (firstPatchedRow >= endOfPatchedRows) {
+			addAll(events);
+		} else {
+			addRepeated(events, ROWS_REPEATED, firstPatchedRow - row);
+			for (int patchedRow = firstPatchedRow; patchedRow < endOfPatchedRows; patchedRow++) {
+				addPatchedRow(events, patchedRow - FIRST_ROW);
+			}
+			addRepeated(events, ROWS_REPEATED, row + repeated - endOfPatchedRows);
+		}
+		row += repeated;
+	}
+
+	private void addPatchedRow(List<XMLEvent> events, int employee) throws XMLStreamException {
+		writer.add(withRepeated(events.get(0).asStartElement(), ROWS_REPEATED, 1));
+		int column = 0;
+		int index = 1;
+
+		while (index < events.size() - 1) {
+			XMLEvent event = events.get(index);
+			if (isStartOf(event, "table-cell") || isStartOf(event, "covered-table-cell")) {
+				int endOfCell = getIndexOfEndElement(events, index);
+				column = patchCell(events.subList(index, endOfCell + 1), column, employee);
+				index = endOfCell + 1;
+			} else {
+				writer.add(event);
+				index++;
+			}
+		}
+		addMissingCells(column, employee);
+		writer.add(events.get(events.size() - 1));
+	}
+
+	private int patchCell(List<XMLEvent> events, int column, int employee) throws XMLStreamException {
+		StartElement start = events.get(0).asStartElement();
+		int repeated = getRepeated(start, COLUMNS_REPEATED);
+		int firstPatchedColumn = Math.max(column, FIRST_COLUMN);
+		int endOfPatchedColumns = Math.min(column + repeated, END_COLUMN);
+
+		if (firstPatchedColumn >= endOfPatchedColumns || isTableElement(start.getName(), "covered-table-cell")) {
+			addAll(events);
+		} else {
+			addRepeated(events, COLUMNS_REPEATED, firstPatchedColumn - column);
+			addScheduleCells(start, employee, firstPatchedColumn - FIRST_COLUMN, endOfPatchedColumns - FIRST_COLUMN);
+			addRepeated(events, COLUMNS_REPEATED, column + repeated - endOfPatchedColumns);
+		}
+		return column + repeated;
+	}
+
+	private void addScheduleCells(StartElement template, int employee, int fromDay, int toDay)
+			throws XMLStreamException {
+		int day = fromDay;
+
+		while (day < toDay) {
+			String value = schedule[employee][day];
+			int endOfEqualDays = day + 1;
+			while (endOfEqualDays < toDay && Objects.equals(schedule[employee][endOfEqualDays], value)) {
+				endOfEqualDays++;
+			}
+			addScheduleCell(template, value, endOfEqualDays - day);
+			day = endOfEqualDays;
+		}
+	}
+
+	private void addScheduleCell(StartElement template, String value, int repeated) throws XMLStreamException {
+		List<Attribute> attributes = new ArrayList<>();
+		Iterator<Namespace> namespaces = null;
+		String prefix = "table";
+
+		if (template != null) {
+			for (Iterator<Attribute> iterator = template.getAttributes(); iterator.hasNext();) {
+				Attribute attribute = iterator.next();
+				if (!VALUE_ATTRIBUTES.contains(attribute.getName())) {
+					attributes.add(attribute);
+				}
+			}
+			namespaces = template.getNamespaces();
+			prefix = template.getName().getPrefix();
+		}
+		if (repeated > 1) {
+			attributes.add(eventFactory.createAttribute(COLUMNS_REPEATED, String.valueOf(repeated)));
+		}
+		if (value != null) {
+			attributes.add(eventFactory.createAttribute(VALUE_TYPE, "string"));
+		}
+
+		writer.add(eventFactory.createStartElement(prefix, TABLE_NAMESPACE, "table-cell", attributes.iterator(),
+				namespaces));
+		if (value != null) {
+			writer.add(eventFactory.createStartElement("text", TEXT_NAMESPACE, "p"));
+			writer.add(eventFactory.createCharacters(value));
+			writer.add(eventFactory.createEndElement("text", TEXT_NAMESPACE, "p"));
+		}
+		writer.add(eventFactory.createEndElement(prefix, TABLE_NAMESPACE, "table-cell"));
+	}
+
+	private void addMissingCells(int column, int employee) throws XMLStreamException {
+		if (column < FIRST_COLUMN) {
+			addScheduleCell(null, null, FIRST_COLUMN - column);
+		}
+		addScheduleCells(null, employee, Math.max(column, FIRST_COLUMN) - FIRST_COLUMN,
+				SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH);
+	}
+
+	private void addMissingRows() throws XMLStreamException {
+		while (row < END_ROW) {
+			List<Attribute> attributes = new ArrayList<>();
+			if (row < FIRST_ROW - 1) {
+				attributes.add(eventFactory.createAttribute(ROWS_REPEATED, String.valueOf(FIRST_ROW - row)));
+			}
+			writer.add(eventFactory.createStartElement("table", TABLE_NAMESPACE, "table-row", attributes.iterator(),
+					null));
+			if (row < FIRST_ROW) {
+				addScheduleCell(null, null, 1);
+				row = FIRST_ROW;
+			} else {
+				addMissingCells(0, row - FIRST_ROW);
+				row++;
+			}
+			writer.add(eventFactory.createEndElement("table", TABLE_NAMESPACE, "table-row"));
+		}
+	}
+
+	private void addRepeated(List<XMLEvent> events, QName repeatedAttribute, int repeated) throws XMLStreamException {
+		if (repeated <= 0) {
+			return;
+		}
+		writer.add(withRepeated(events.get(0).asStartElement(), repeatedAttribute, repeated));
+		addAll(events.subList(1, events.size()));
+	}
+
+	private void addAll(List<XMLEvent> events) throws XMLStreamException {
+		for (XMLEvent event : events) {
+			writer.add(event);
+		}
+	}
+
+	private StartElement withRepeated(StartElement start, QName repeatedAttribute, int repeated) {
+		List<Attribute> attributes = new ArrayList<>();
+		for (Iterator<Attribute> iterator = start.getAttributes(); iterator.hasNext();) {
+			Attribute attribute = iterator.next();
+			if (!attribute.getName().equals(repeatedAttribute)) {
+				attributes.add(attribute);
+			}
+		}
+		if (repeated > 1) {
+			attributes.add(eventFactory.createAttribute(repeatedAttribute, String.valueOf(repeated)));
+		}
+		QName name = start.getName();
+		return eventFactory.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(),
+				attributes.iterator(), start.getNamespaces());
+	}
+
+	private static List<XMLEvent> readElement(XMLEventReader reader, XMLEvent start) throws XMLStreamException {
+		List<XMLEvent> events = new ArrayList<>();
+		events.add(start);
+		int depth = 1;
+
+		while (depth > 0) {
+			XMLEvent event = reader.nextEvent();
+			depth += event.isStartElement() ? 1 : event.isEndElement() ? -1 : 0;
+			events.add(event);
+		}
+		return events;
+	}
+
+	private static int getIndexOfEndElement(List<XMLEvent> events, int indexOfStart) {
+		int depth = 0;
+		for (int index = indexOfStart; index < events.size(); index++) {
+			XMLEvent event = events.get(index);
+			depth += event.isStartElement() ? 1 : event.isEndElement() ? -1 : 0;
+			if (depth == 0) {
+				return index;
+			}
+		}
+		return events.size() - 1;
+	}
+
+	private static int getRepeated(StartElement start, QName repeatedAttribute) {
+		Attribute attribute = start.getAttributeByName(repeatedAttribute);
+		return attribute == null ? 1 : Integer.parseInt(attribute.getValue());
+	}
+
+	private static boolean isStartOf(XMLEvent event, String localName) {
+		return event.isStartElement() && isTableElement(event.asStartElement().getName(), localName);
+	}
+
+	private static boolean isTableElement(QName name, String localName) {
+		return localName.equals(name.getLocalPart()) && TABLE_NAMESPACE.equals(name.getNamespaceURI());
+	}
+}
@@ -6,7 +6,6 @@ import java.util.Objects;
 import java.util.function.IntToDoubleFunction;
 import java.util.stream.IntStream;
 
-import com.github.miachm.sods.Range;
 import scheduling.common.Config;
 
 public class SpreadSheetReaderTools {
@@ -17,7 +16,8 @@ public class SpreadSheetReaderTools {
 	private static final String DAYS_TO_WORK_AT_FREE_DAY_COLUMN = "AI";
 	private static final String WISHED_LENGTH_OF_SHIFT_COLUMN = "AJ";
 	private static final String ADDITIONAL_MIN_FREE_DAYS_BETWEEN_SHIFTS = "AL";
-	private static final String DATE_CELL = "L1";
+	private static final String DATE_COLUMN = "L";
+	private static final int DATE_ROW = 1;
 	private static final int FREE_DAY_ROW_OFFSET = 1;
 	private static final int SINGLE_SHIFT_ALLOWED_ROW_OFFSET = 3;
 
@@ -52,12 +52,11 @@ public class SpreadSheetReaderTools {
 	}
 
 	public int calculateLengthOfMonth() {
-		Range range = reader.getSheet().getRange(DATE_CELL);
-		Object value = range.getValue();
+		Object value = reader.getSnapshot().getValue(DATE_COLUMN, DATE_ROW);
 		if (value instanceof LocalDate) {
 			return ((LocalDate) value).lengthOfMonth();
 		} else {
-			throw new IllegalArgumentException("Cell " + DATE_CELL + " does not contain a valid date (LocalDate).");
+			throw new IllegalArgumentException("Cell " + DATE_COLUMN + DATE_ROW + " does not contain a valid date (LocalDate).");
 		}
 	}
 
@@ -8,12 +8,14 @@ import com.github.miachm.sods.Sheet;
 import com.github.miachm.sods.SpreadSheet;
 
 import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
 
 public class SpreadsheetReader {
 	private final File input;
 	private final SpreadSheetReaderTools tools;
 	private SpreadSheet spreadSheet;
 	private Sheet sheet;
+	private SpreadsheetSnapshot snapshot;
 	private int lengthOfMonth;
 	private double[] maxLengthOfShiftPerEmployee;
 	private Boolean[] isFreeDay;
@@ -25,20 +27,38 @@ public class SpreadsheetReader {
 	private double[] daysToWorkAtFreeDayPerEmployee;
 	private double[] wishedLengthOfShiftPerEmployee;
 	private double[] expectedDaysBetweenShiftsPerEmployee;
+	private ProblemInstance problemInstance;
 
 	public SpreadsheetReader(File inpFile) {
 		this.input = Objects.requireNonNull(inpFile, "Input file must not be null");
 		this.tools = new SpreadSheetReaderTools(this);
 	}
 
-	public SpreadSheet getSpreadSheet() {
+	/**
+	 * Returns the document model of the input, which is only loaded on demand if the input has been read with the
+	 * streaming reader.
+	 */
+	public SpreadSheet getSpreadSheet() throws IOException {
+		if (spreadSheet == null) {
+			spreadSheet = new SpreadSheet(input);
+			sheet = spreadSheet.getSheet(0);
+		}
 		return spreadSheet;
 	}
 
-	public Sheet getSheet() {
+	public Sheet getSheet() throws IOException {
+		getSpreadSheet();
 		return sheet;
 	}
 
+	public ProblemInstance getProblemInstance() {
+		return problemInstance;
+	}
+
+	public SpreadsheetSnapshot getSnapshot() {
+		return snapshot;
+	}
+
 	public File getInputFile() {
 		return input;
 	}
@@ -91,8 +111,32 @@ public class SpreadsheetReader {
 	}
 
 	public void run() throws IOException {
-		spreadSheet = new SpreadSheet(input);
-		sheet = spreadSheet.getSheet(0);
+		if (!Config.PROBLEM_INSTANCE_CACHE) {
+			parse();
+			return;
+		}
+
+		ProblemInstanceCache cache = new ProblemInstanceCache(input);
+		problemInstance = cache.load();
+		if (problemInstance == null) {
+			parse();
+			cache.store(problemInstance);
+		}
+	}
+
+	private void parse() throws IOException {
+		if (Config.STREAMING_READER) {
+			snapshot = new OdsStreamingReader(input).read();
+		} else {
+			spreadSheet = new SpreadSheet(input);
+			sheet = spreadSheet.getSheet(0);
+			snapshot = SpreadsheetSnapshot.of(sheet);
+		}
+		if (Config.PATCHING_WRITER) {
+			// The output is patched into a copy of the input file, so the document model is not needed anymore
+			spreadSheet = null;
+			sheet = null;
+		}
 		lengthOfMonth = tools.calculateLengthOfMonth();
 		isFreeDay = tools.calculateIsFreeDay();
 		isSingleSShiftForbiddenOnDay = tools.calculateIsSingleShiftForbiddenOnDay();
@@ -104,5 +148,38 @@ public class SpreadsheetReader {
 		daysToWorkAtFreeDayPerEmployee = tools.calculateDaysToWorkAtFreeDay();
 		wishedLengthOfShiftPerEmployee = tools.calculateWishedLengthOfShiftPerEmployee();
 		expectedDaysBetweenShiftsPerEmployee = tools.calculateExpectedDaysBetweenShifts();
+		problemInstance = createProblemInstance();
+	}
+
+	private ProblemInstance createProblemInstance() {
+		int[] fixedEmployees = new int[lengthOfMonth];
+		long freeDays = 0;
+		long singleShiftForbiddenDays = 0;
+
+		for (int day = 0; day < lengthOfMonth; day++) {
+			fixedEmployees[day] = fixedEmployeeOnDay[day];
+			freeDays |= isFreeDay[day] ? 1L << day : 0;
+			singleShiftForbiddenDays |= isSingleSShiftForbiddenOnDay[day] ? 1L << day : 0;
+		}
+
+		long[] availableDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			for (int day = 0; day < lengthOfMonth; day++) {
+				availableDaysOfEmployee[employee] |= isAvailablePerDay[employee][day] ? 1L << day : 0;
+			}
+		}
+
+		return new ProblemInstance(lengthOfMonth, freeDays, singleShiftForbiddenDays, fixedEmployees,
+				availableDaysOfEmployee, maxLengthOfShiftPerEmployee, wishedLengthOfShiftPerEmployee,
+				additionalFreeDaysBetweenShifts, toWholeDays(daysToWorkInTotalPerEmployee),
+				daysToWorkAtFreeDayPerEmployee, expectedDaysBetweenShiftsPerEmployee);
+	}
+
+	private static int[] toWholeDays(double[] values) {
+		int[] wholeDays = new int[values.length];
+		for (int index = 0; index < values.length; index++) {
+			wholeDays[index] = (int) Math.floor(values[index]);
+		}
+		return wholeDays;
 	}
 }
@@ -1,14 +1,10 @@
 package scheduling.spreadsheet;
 
-import com.github.miachm.sods.Range;
-
 import scheduling.common.Config;
 
 import java.util.Objects;
 
 public class SpreadsheetReaderToolsHelper {
-	private static final String SCHEDULE_DATA_START_COLUMN = "B";
-	private static final String SCHEDULE_DATA_END_COLUMN = "AF";
 	private static final int SCHEDULE_DATA_START_ROW = 6;
 
 	private final SpreadsheetReader reader;
@@ -21,28 +17,23 @@ public class SpreadsheetReaderToolsHelper {
 
 	public Boolean[] calculateDayProperty(int row, String property) {
 		Boolean[] dayProperty = new Boolean[reader.getLengthOfMonth()];
-		String a1Notation = SCHEDULE_DATA_START_COLUMN + row + ":" + SCHEDULE_DATA_END_COLUMN + row;
-		Range range = reader.getSheet().getRange(a1Notation);
-		Object[] objects = range.getValues()[0];
+		SpreadsheetSnapshot snapshot = reader.getSnapshot();
 
 		for (int index = 0; index < reader.getLengthOfMonth(); index++) {
-			String str = String.valueOf(objects[index]);
+			String str = String.valueOf(snapshot.getValue(row, SpreadsheetSnapshot.FIRST_COLUMN_OF_SCHEDULE + index));
 			dayProperty[index] = str.equals(property);
 		}
 		return dayProperty;
 	}
 
 	public double[] calculateEmployeePreferencesOnSpreadsheet(String columnInA1Notation, boolean isNegativeValueAllowed) {
-		String a1Notation = columnInA1Notation + SCHEDULE_DATA_START_ROW + ":" + columnInA1Notation
-				+ Config.LAST_ROW_OF_SCHEDULE;
 		double[] preferencesPerEmployee = new double[Config.NUMBER_OF_EMPLOYEES];
-		Range range = reader.getSheet().getRange(a1Notation);
-		Object[][] values = range.getValues();
+		SpreadsheetSnapshot snapshot = reader.getSnapshot();
 
 		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
-			Object[] value = values[employee];
-			preferencesPerEmployee[employee] = value[0] != null
-					? Double.parseDouble(String.valueOf(value[0]))
+			Object value = snapshot.getValue(columnInA1Notation, SCHEDULE_DATA_START_ROW + employee);
+			preferencesPerEmployee[employee] = value != null
+					? Double.parseDouble(String.valueOf(value))
 					: Config.MISSING_EMPLOYEE;
 
 			if(!isNegativeValueAllowed) {
@@ -55,17 +46,15 @@ public class SpreadsheetReaderToolsHelper {
 	}
 
 	public  <T> void calculatePropertyForEmployeeOnDays(T[] result, int employee,
-														TriFunction<Range, Integer, Integer, T> function) {
-		String a1Notation = SCHEDULE_DATA_START_COLUMN + SCHEDULE_DATA_START_ROW + ":" + SCHEDULE_DATA_END_COLUMN
-				+ Config.LAST_ROW_OF_SCHEDULE;
-		Range range = reader.getSheet().getRange(a1Notation);
+														TriFunction<SpreadsheetSnapshot, Integer, Integer, T> function) {
+		SpreadsheetSnapshot snapshot = reader.getSnapshot();
 
 		for (int day = 0; day < reader.getLengthOfMonth(); day++) {
-			result[day] = function.apply(range, employee, day);
+			result[day] = function.apply(snapshot, employee, day);
 		}
 	}
 
-	public TriFunction<Range, Integer, Integer, Integer> getFunctionForCalculationOfFixedEmployees() {
+	public TriFunction<SpreadsheetSnapshot, Integer, Integer, Integer> getFunctionForCalculationOfFixedEmployees() {
 		if (this.fixedEmployeeOnDay == null) {
 			throw new IllegalStateException(
 					"fixedEmployeeOnDay must be set before calling getFunctionForCalculationOfFixedEmployees.");
@@ -74,8 +63,8 @@ public class SpreadsheetReaderToolsHelper {
 		return this::calculateFixedEmployeeInternal;
 	}
 
-	public TriFunction<Range, Integer, Integer, Boolean> getFunctionForCalculationOfAvailableEmployees() {
-		return (range, employee, day) -> range.getStyles()[employee][day].getBackgroundColor() == null;
+	public TriFunction<SpreadsheetSnapshot, Integer, Integer, Boolean> getFunctionForCalculationOfAvailableEmployees() {
+		return (snapshot, employee, day) -> !snapshot.hasBackgroundColorInSchedule(employee, day);
 	}
 
 	public void setFixedEmployeeOnDay(Integer[] fixedEmployeeOnDay) {
@@ -83,10 +72,9 @@ public class SpreadsheetReaderToolsHelper {
 				"fixedEmployeeOnDay array must not be null");
 	}
 
-	private int calculateFixedEmployeeInternal(Range range, int employee, int day) {
+	private int calculateFixedEmployeeInternal(SpreadsheetSnapshot snapshot, int employee, int day) {
 		int date = day + 1;
-		Object[][] values = range.getValues();
-		boolean isWorking = String.valueOf(values[employee][day]).equals(Config.WORKING);
+		boolean isWorking = String.valueOf(snapshot.getValueInSchedule(employee, day)).equals(Config.WORKING);
 		boolean canWork = reader.isEmployeeAvailableOnDay(employee, day);
 
 		validateEmployeeAvailability(isWorking, canWork, date);
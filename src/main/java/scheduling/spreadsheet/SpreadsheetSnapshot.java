@@ -0,0 +1,82 @@
+package scheduling.spreadsheet;
+
+import com.github.miachm.sods.Range;
+import com.github.miachm.sods.Sheet;
+import com.github.miachm.sods.Style;
+
+import scheduling.common.Config;
+
+/**
+ * Copy of all cells of the first sheet which are relevant for scheduling: the header, the schedule, the rows below
+ * the schedule and the columns with the preferences of the employees. The values and the background colors are pulled
+ * from the sheet exactly once, so that all properties can be derived from plain arrays afterwards.
+ */
+public class SpreadsheetSnapshot {
+	public static final int LAST_ROW = Config.LAST_ROW_OF_SCHEDULE + 3;
+	public static final String LAST_COLUMN = "AL";
+	public static final int FIRST_ROW_OF_SCHEDULE = Config.ROWS_OF_HEADER + 1;
+	public static final int FIRST_COLUMN_OF_SCHEDULE = 1;
+	public static final int MAX_LENGTH_OF_MONTH = 31;
+
+	private final Object[][] values;
+	private final boolean[][] hasBackgroundColorInSchedule;
+
+	public SpreadsheetSnapshot(Object[][] values, boolean[][] hasBackgroundColorInSchedule) {
+		this.values = values;
+		this.hasBackgroundColorInSchedule = hasBackgroundColorInSchedule;
+	}
+
+	public static SpreadsheetSnapshot of(Sheet sheet) {
+		Object[][] values = sheet.getRange("A1:" + LAST_COLUMN + LAST_ROW).getValues();
+
+		String firstCell = getColumnName(FIRST_COLUMN_OF_SCHEDULE) + FIRST_ROW_OF_SCHEDULE;
+		String lastCell = getColumnName(FIRST_COLUMN_OF_SCHEDULE + MAX_LENGTH_OF_MONTH - 1) + Config.LAST_ROW_OF_SCHEDULE;
+		Range schedule = sheet.getRange(firstCell + ":" + lastCell);
+		Style[][] styles = schedule.getStyles();
+
+		boolean[][] hasBackgroundColor = new boolean[Config.NUMBER_OF_EMPLOYEES][MAX_LENGTH_OF_MONTH];
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			for (int day = 0; day < MAX_LENGTH_OF_MONTH; day++) {
+				hasBackgroundColor[employee][day] = styles[employee][day].getBackgroundColor() != null;
+			}
+		}
+		return new SpreadsheetSnapshot(values, hasBackgroundColor);
+	}
+
+	/**
+	 * Returns the value of a cell, where the row is numbered as in the spreadsheet and the column is counted from
+	 * zero for column A.
+	 */
+	public Object getValue(int row, int column) {
+		Object[] valuesOfRow = values[row - 1];
+		return column < valuesOfRow.length ? valuesOfRow[column] : null;
+	}
+
+	public Object getValue(String column, int row) {
+		return getValue(row, getColumnIndex(column));
+	}
+
+	public Object getValueInSchedule(int employee, int day) {
+		return getValue(FIRST_ROW_OF_SCHEDULE + employee, FIRST_COLUMN_OF_SCHEDULE + day);
+	}
+
+	public boolean hasBackgroundColorInSchedule(int employee, int day) {
+		return hasBackgroundColorInSchedule[employee][day];
+	}
+
+	public static int getColumnIndex(String column) {
+		int index = 0;
+		for (int position = 0; position < column.length(); position++) {
+			index = index * 26 + (column.charAt(position) - 'A' + 1);
+		}
+		return index - 1;
+	}
+
+	public static String getColumnName(int columnIndex) {
+		StringBuilder name = new StringBuilder();
+		for (int index = columnIndex + 1; index > 0; index = (index - 1) / 26) {
+			name.insert(0, (char) ('A' + (index - 1) % 26));
+		}
+		return name.toString();
+	}
+}
@@ -49,7 +49,7 @@ public class SpreadsheetWriter {
 	private String[][] getOutput() {
 		String[][] output = new String[Config.NUMBER_OF_EMPLOYEES][31];
 
-		for (int day = 0; day < threadsController.getSpreadsheetReader().getLengthOfMonth(); day++) {
+		for (int day = 0; day < threadsController.getProblemInstance().getLengthOfMonth(); day++) {
 			int employee = solution.getEmployeeForDay(day);
 			if (employee != Config.MISSING_EMPLOYEE) {
 				output[employee][day] = Config.WORKING;
@@ -61,6 +61,11 @@ public class SpreadsheetWriter {
 	private void saveOutput(File outputFile, String[][] output) throws Exception {
 		threadsController.println("Writing output to: " + outputFile.getAbsolutePath());
 
+		if (Config.PATCHING_WRITER) {
+			new OdsPatchWriter(threadsController.getSpreadsheetReader().getInputFile()).write(outputFile, output);
+			return;
+		}
+
 		Sheet sheet = threadsController.getSpreadsheetReader().getSheet();
 		Range range = sheet.getRange("B6:AF" + Config.LAST_ROW_OF_SCHEDULE);
 		range.setValues(output);
@@ -0,0 +1,67 @@
+package scheduling.tabuSearch;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.random.RandomGenerator;
+
+import scheduling.common.Solution;
+
+/**
+ * Shares the best solutions of the parallel tabu searches, so that a search which got stuck can continue from a better
+ * solution found by another one. Every search owns the slot of its index for its elite solution, and the best of all
+ * solutions is kept separately. Published solutions must not be changed anymore and their costs must be known, so that
+ * they can be read by several threads without locking. A search taking a solution from the board works on a copy of
+ * it.
+ */
+public class EliteBoard {
+	private final AtomicReferenceArray<Solution> eliteSolutions;
+	private final AtomicReference<Solution> bestSolution;
+
+	public EliteBoard(int numberOfIslands) {
+		this.eliteSolutions = new AtomicReferenceArray<>(Math.max(1, numberOfIslands));
+		this.bestSolution = new AtomicReference<>();
+	}
+
+	/**
+	 * Takes the solution as elite solution of the search with the given index and as best solution of all searches if
+	 * it is better. A search which restarts keeps its index, so it replaces its own elite solution only.
+	 */
+	public void publish(int island, Solution solution) {
+		Solution eliteSolution = eliteSolutions.get(island);
+		while (eliteSolution == null || solution.getCosts() < eliteSolution.getCosts()) {
+			if (eliteSolutions.compareAndSet(island, eliteSolution, solution)) {
+				break;
+			}
+			eliteSolution = eliteSolutions.get(island);
+		}
+
+		Solution currentBestSolution = bestSolution.get();
+		while (currentBestSolution == null || solution.getCosts() < currentBestSolution.getCosts()) {
+			if (bestSolution.compareAndSet(currentBestSolution, solution)) {
+				return;
+			}
+			currentBestSolution = bestSolution.get();
+		}
+	}
+
+	/**
+	 * Returns the best solution of all searches, or null if no solution has been published yet.
+	 */
+	public Solution getBestSolution() {
+		return bestSolution.get();
+	}
+
+	/**
+	 * Returns the best solution of all searches or the elite solution of another random search with equal probability,
+	 * or null if no solution has been published yet.
+	 */
+	public Solution getBestOrRandomEliteSolution(int island, RandomGenerator random) {
+		if (eliteSolutions.length() == 1 || random.nextBoolean()) {
+			return getBestSolution();
+		}
+
+		int otherIsland = (island + random.nextInt(1, eliteSolutions.length())) % eliteSolutions.length();
+		Solution eliteSolution = eliteSolutions.get(otherIsland);
+		return eliteSolution != null ? eliteSolution : getBestSolution();
+	}
+}
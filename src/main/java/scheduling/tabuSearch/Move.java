@@ -1,6 +1,93 @@
 package scheduling.tabuSearch;
 
-public record Move(int fromDay, int toDay) {
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
 
+/**
+ * A move assigns new employees to some days of the schedule. Moves are sampled over and over again in the inner loop
+ * of the tabu search, so a move is a reusable buffer instead of an immutable value.
+ */
+public class Move {
+	private final int[] days;
+	private final int[] employees;
+	private MoveKind kind;
+	private int size;
 
+	public Move(int capacity) {
+		this.days = new int[capacity];
+		this.employees = new int[capacity];
+		this.kind = MoveKind.EXCHANGE;
+		this.size = 0;
+	}
+
+	public void reset(MoveKind kind) {
+		this.kind = kind;
+		this.size = 0;
+	}
+
+	public void add(int day, int employee) {
+		days[size] = day;
+		employees[size] = employee;
+		size++;
+	}
+
+	public void copyFrom(Move other) {
+		kind = other.kind;
+		size = other.size;
+		System.arraycopy(other.days, 0, days, 0, size);
+		System.arraycopy(other.employees, 0, employees, 0, size);
+	}
+
+	public MoveKind getKind() {
+		return kind;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getDay(int index) {
+		return days[index];
+	}
+
+	public int getEmployee(int index) {
+		return employees[index];
+	}
+
+	public int[] getDays() {
+		return days;
+	}
+
+	public int[] getEmployees() {
+		return employees;
+	}
+
+	public int getFromDay() {
+		return days[0];
+	}
+
+	public int getToDay() {
+		return days[1];
+	}
+
+	/**
+	 * Calculates the total costs the solution would have after this move without modifying the solution.
+	 */
+	public double getCostsAfterMove(Solution solution) {
+		if (kind == MoveKind.EXCHANGE) {
+			return solution.getCostsOfExchange(getFromDay(), getToDay());
+		}
+		return solution.getCostsOfAssignment(days, employees, size);
+	}
+
+	public void applyTo(Solution solution, ProblemInstance problemInstance) {
+		if (kind == MoveKind.EXCHANGE) {
+			if (problemInstance.isFreeDay(getFromDay()) != problemInstance.isFreeDay(getToDay())) {
+				solution.exchangeFreeDayBetweenEmployees(getFromDay(), getToDay());
+			}
+			solution.exchangeEmployeesOnDays(getFromDay(), getToDay());
+		} else {
+			solution.assignEmployeesToDays(days, employees, size);
+		}
+	}
 }
@@ -0,0 +1,14 @@
+package scheduling.tabuSearch;
+
+public enum MoveKind {
+	/** Exchanges the employees of two days. */
+	EXCHANGE,
+	/** Gives one day to another employee who has not reached the number of days to work in total yet. */
+	REASSIGNMENT,
+	/** Shifts a whole block shift of an employee, the displaced days take the place of the block. */
+	BLOCK_RELOCATION,
+	/** Rotates the employees of three days, each employee takes over the day of the next one. */
+	EJECTION_CHAIN,
+	/** Assigns the employees of a window of days again, see {@link scheduling.matching.WindowRepair}. */
+	WINDOW_REPAIR
+}
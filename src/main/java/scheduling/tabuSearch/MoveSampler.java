@@ -0,0 +1,190 @@
+package scheduling.tabuSearch;
+
+import java.util.random.RandomGenerator;
+
+import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
+
+/**
+ * Draws random moves which satisfy the fixed days and the availability of the employees, so that no sample of the
+ * neighborhood is wasted on a move the validator would reject anyway. Besides exchanges of two days, the extended
+ * moves of {@link MoveKind} are drawn if they are enabled.
+ */
+public class MoveSampler {
+	private static final MoveKind[] EXTENDED_MOVE_KINDS = { MoveKind.REASSIGNMENT, MoveKind.BLOCK_RELOCATION,
+			MoveKind.EJECTION_CHAIN };
+
+	private final ProblemInstance problemInstance;
+	private final MoveValidator moveValidator;
+	private final boolean useExtendedMoves;
+
+	public MoveSampler(ProblemInstance problemInstance, MoveValidator moveValidator, boolean useExtendedMoves) {
+		this.problemInstance = problemInstance;
+		this.moveValidator = moveValidator;
+		this.useExtendedMoves = useExtendedMoves;
+	}
+
+	/**
+	 * Fills the move with a random legal move and returns false if none has been found for the randomly chosen days.
+	 * Half of the moves are exchanges, the other half is divided equally between the extended moves. The movable days
+	 * have to be determined for the current solution by {@link MoveValidator#getMovableDays(Solution)}.
+	 */
+	public boolean sample(Solution currentSolution, long movableDays, RandomGenerator random, Move move) {
+		if (!useExtendedMoves || random.nextBoolean()) {
+			return sampleExchange(currentSolution, movableDays, random, move);
+		}
+
+		boolean isSampled = switch (EXTENDED_MOVE_KINDS[random.nextInt(EXTENDED_MOVE_KINDS.length)]) {
+			case REASSIGNMENT -> sampleReassignment(currentSolution, movableDays, random, move);
+			case BLOCK_RELOCATION -> sampleBlockRelocation(currentSolution, movableDays, random, move);
+			default -> sampleEjectionChain(currentSolution, movableDays, random, move);
+		};
+		return isSampled && !moveValidator.isMoveForbidden(currentSolution, move);
+	}
+
+	private boolean sampleExchange(Solution currentSolution, long movableDays, RandomGenerator random, Move move) {
+		if (Long.bitCount(movableDays) < 2) {
+			return false;
+		}
+
+		int fromDay = selectRandomDay(movableDays, random);
+		long compatibleDays = moveValidator.getCompatibleDays(currentSolution, movableDays, fromDay);
+		if (compatibleDays == 0) {
+			return false;
+		}
+
+		int toDay = selectRandomDay(compatibleDays, random);
+		if (moveValidator.areFreeDaysForbidden(currentSolution, fromDay, toDay)) {
+			return false;
+		}
+		move.reset(MoveKind.EXCHANGE);
+		move.add(fromDay, currentSolution.getEmployeeForDay(toDay));
+		move.add(toDay, currentSolution.getEmployeeForDay(fromDay));
+		return true;
+	}
+
+	private boolean sampleReassignment(Solution currentSolution, long movableDays, RandomGenerator random, Move move) {
+		if (movableDays == 0) {
+			return false;
+		}
+
+		int day = selectRandomDay(movableDays, random);
+		int currentEmployee = currentSolution.getEmployeeForDay(day);
+		int selectedEmployee = Config.MISSING_EMPLOYEE;
+		int numberOfCandidates = 0;
+
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			if (employee != currentEmployee && problemInstance.isEmployeeAvailableOnDay(employee, day)
+					&& moveValidator.canWorkAdditionalDay(currentSolution, employee)
+					&& random.nextInt(++numberOfCandidates) == 0) {
+				selectedEmployee = employee;
+			}
+		}
+
+		if (selectedEmployee == Config.MISSING_EMPLOYEE) {
+			return false;
+		}
+		move.reset(MoveKind.REASSIGNMENT);
+		move.add(day, selectedEmployee);
+		return true;
+	}
+
+	/**
+	 * Shifts the block shift around a random day by up to its length in either direction. If it is shifted by its
+	 * whole length, this exchanges the block with the days next to it.
+	 */
+	private boolean sampleBlockRelocation(Solution currentSolution, long movableDays, RandomGenerator random,
+			Move move) {
+		long daysWithEmployee = movableDays & ~currentSolution.getDaysWithoutEmployee();
+		if (daysWithEmployee == 0) {
+			return false;
+		}
+
+		int day = selectRandomDay(daysWithEmployee, random);
+		int employee = currentSolution.getEmployeeForDay(day);
+		long workingDays = currentSolution.getWorkingDaysOfEmployee(employee);
+		int firstDay = day;
+		int lastDay = day;
+		while (firstDay > 0 && (workingDays & (1L << (firstDay - 1))) != 0) {
+			firstDay--;
+		}
+		while (lastDay < problemInstance.getLengthOfMonth() - 1 && (workingDays & (1L << (lastDay + 1))) != 0) {
+			lastDay++;
+		}
+
+		int length = lastDay - firstDay + 1;
+		int offset = random.nextInt(1, length + 1) * (random.nextBoolean() ? 1 : -1);
+		if (firstDay + offset < 0 || lastDay + offset >= problemInstance.getLengthOfMonth()) {
+			return false;
+		}
+
+		move.reset(MoveKind.BLOCK_RELOCATION);
+		if (offset > 0) {
+			for (int index = 0; index < offset; index++) {
+				addIfChanged(currentSolution, move, firstDay + index,
+						currentSolution.getEmployeeForDay(lastDay + 1 + index));
+			}
+			for (int index = 0; index < length; index++) {
+				addIfChanged(currentSolution, move, firstDay + offset + index, employee);
+			}
+		} else {
+			for (int index = 0; index < length; index++) {
+				addIfChanged(currentSolution, move, firstDay + offset + index, employee);
+			}
+			for (int index = 0; index < -offset; index++) {
+				addIfChanged(currentSolution, move, lastDay + 1 + offset + index,
+						currentSolution.getEmployeeForDay(firstDay + offset + index));
+			}
+		}
+		return move.size() > 0;
+	}
+
+	/**
+	 * The employee of the first day moves to the second day, the employee of the second day to the third day and the
+	 * employee of the third day to the first day.
+	 */
+	private boolean sampleEjectionChain(Solution currentSolution, long movableDays, RandomGenerator random, Move move) {
+		if (Long.bitCount(movableDays) < 3) {
+			return false;
+		}
+
+		int firstDay = selectRandomDay(movableDays, random);
+		int firstEmployee = currentSolution.getEmployeeForDay(firstDay);
+		long secondDays = movableDays & problemInstance.getAvailableDaysOfEmployee(firstEmployee)
+				& ~currentSolution.getWorkingDaysOfEmployee(firstEmployee);
+		if (secondDays == 0) {
+			return false;
+		}
+
+		int secondDay = selectRandomDay(secondDays, random);
+		int secondEmployee = currentSolution.getEmployeeForDay(secondDay);
+		long thirdDays = moveValidator.getCompatibleDays(currentSolution, movableDays, firstDay)
+				& problemInstance.getAvailableDaysOfEmployee(secondEmployee)
+				& ~currentSolution.getWorkingDaysOfEmployee(secondEmployee);
+		if (thirdDays == 0) {
+			return false;
+		}
+
+		int thirdDay = selectRandomDay(thirdDays, random);
+		move.reset(MoveKind.EJECTION_CHAIN);
+		move.add(firstDay, currentSolution.getEmployeeForDay(thirdDay));
+		move.add(secondDay, firstEmployee);
+		move.add(thirdDay, secondEmployee);
+		return true;
+	}
+
+	private static void addIfChanged(Solution currentSolution, Move move, int day, int employee) {
+		if (currentSolution.getEmployeeForDay(day) != employee) {
+			move.add(day, employee);
+		}
+	}
+
+	static int selectRandomDay(long days, RandomGenerator random) {
+		long remainingDays = days;
+		for (int skippedDays = random.nextInt(Long.bitCount(days)); skippedDays > 0; skippedDays--) {
+			remainingDays &= remainingDays - 1;
+		}
+		return Long.numberOfTrailingZeros(remainingDays);
+	}
+}
@@ -1,32 +1,56 @@
 package scheduling.tabuSearch;
 
 import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
 import scheduling.common.Solution;
-import scheduling.spreadsheet.SpreadsheetReader;
 
 public class MoveValidator {
 
-	private final SpreadsheetReader spreadsheetReader;
+	private final ProblemInstance problemInstance;
 
-	public MoveValidator(SpreadsheetReader spreadsheetReader) {
-		this.spreadsheetReader = spreadsheetReader;
+	public MoveValidator(ProblemInstance problemInstance) {
+		this.problemInstance = problemInstance;
 	}
 
 	public boolean isMoveForbidden(Solution currentSolution, Move move) {
-		if(isAtLeastOneEmployeeFixed(currentSolution, move)){
+		if (move.getKind() == MoveKind.EXCHANGE) {
+			return isMoveForbidden(currentSolution, move.getFromDay(), move.getToDay());
+		}
+
+		for (int index = 0; index < move.size(); index++) {
+			int day = move.getDay(index);
+			int oldEmployee = currentSolution.getEmployeeForDay(day);
+			int newEmployee = move.getEmployee(index);
+
+			if ((problemInstance.getFixedDaysOfEmployee(oldEmployee) & (1L << day)) != 0
+					|| (problemInstance.getAvailableDaysOfEmployee(newEmployee) & (1L << day)) == 0) {
+				return true;
+			}
+			if (move.getKind() == MoveKind.REASSIGNMENT && !canWorkAdditionalDay(currentSolution, newEmployee)) {
+				return true;
+			}
+		}
+		return isDeviationFromFreeDaysIncreased(currentSolution, move);
+	}
+
+	public boolean isMoveForbidden(Solution currentSolution, int fromDay, int toDay) {
+		int employee1 = currentSolution.getEmployeeForDay(fromDay);
+		int employee2 = currentSolution.getEmployeeForDay(toDay);
+
+		if(isAtLeastOneEmployeeFixed(employee1, fromDay, employee2, toDay)){
 			return true;
 		}
 
-		if(isAtLeastOneEmployeeUnavailable(currentSolution, move)){
+		if(isAtLeastOneEmployeeUnavailable(employee1, fromDay, employee2, toDay)){
 			return true;
 		}
 
-		return areFreeDaysForbidden(currentSolution, move);
+		return areFreeDaysForbidden(currentSolution, fromDay, toDay);
 	}
 
-	private boolean areFreeDaysForbidden(Solution currentSolution, Move move) {
-		boolean isFromDayFree = spreadsheetReader.isFreeDay(move.fromDay());
-		boolean isToDayFree = spreadsheetReader.isFreeDay(move.toDay());
+	public boolean areFreeDaysForbidden(Solution currentSolution, int fromDay, int toDay) {
+		boolean isFromDayFree = problemInstance.isFreeDay(fromDay);
+		boolean isToDayFree = problemInstance.isFreeDay(toDay);
 
 		if (isFromDayFree == isToDayFree) {
 			return false;
@@ -36,43 +60,122 @@ public class MoveValidator {
 		int employeeLosingFreeDay;
 
 		if (isToDayFree) {
-			employeeGainingFreeDay = currentSolution.getEmployeeForDay(move.fromDay());
-			employeeLosingFreeDay = currentSolution.getEmployeeForDay(move.toDay());
+			employeeGainingFreeDay = currentSolution.getEmployeeForDay(fromDay);
+			employeeLosingFreeDay = currentSolution.getEmployeeForDay(toDay);
 		} else {
-			employeeGainingFreeDay = currentSolution.getEmployeeForDay(move.toDay());
-			employeeLosingFreeDay = currentSolution.getEmployeeForDay(move.fromDay());
+			employeeGainingFreeDay = currentSolution.getEmployeeForDay(toDay);
+			employeeLosingFreeDay = currentSolution.getEmployeeForDay(fromDay);
 		}
 
 		int freeDaysForGainingEmployee = currentSolution.getNumberOfFreeDaysForEmployee(employeeGainingFreeDay);
 		boolean canGain = (employeeGainingFreeDay == Config.MISSING_EMPLOYEE)
-				|| (freeDaysForGainingEmployee < spreadsheetReader.getDaysToWorkAtFreeDayForEmployee(employeeGainingFreeDay));
+				|| (freeDaysForGainingEmployee < problemInstance.getDaysToWorkAtFreeDayForEmployee(employeeGainingFreeDay));
 
 		int freeDaysForLosingEmployee = currentSolution.getNumberOfFreeDaysForEmployee(employeeLosingFreeDay);
 		boolean canLose = (employeeLosingFreeDay == Config.MISSING_EMPLOYEE)
-				|| (freeDaysForLosingEmployee > spreadsheetReader.getDaysToWorkAtFreeDayForEmployee(employeeLosingFreeDay));
+				|| (freeDaysForLosingEmployee > problemInstance.getDaysToWorkAtFreeDayForEmployee(employeeLosingFreeDay));
 
 		return !canGain && !canLose;
 	}
 
-	private boolean isAtLeastOneEmployeeUnavailable(Solution currentSolution, Move move) {
-		int employee1 = currentSolution.getEmployeeForDay(move.fromDay());
-		int employee2 = currentSolution.getEmployeeForDay(move.toDay());
+	public boolean canWorkAdditionalDay(Solution currentSolution, int employee) {
+		return employee != Config.MISSING_EMPLOYEE && Long.bitCount(currentSolution.getWorkingDaysOfEmployee(employee))
+				< problemInstance.getDaysToWorkInTotalForEmployee(employee);
+	}
 
-		boolean employee1AvailableAtToDay = spreadsheetReader.isEmployeeAvailableOnDay(employee1, move.toDay());
-		boolean employee2AvailableAtFromDay = spreadsheetReader.isEmployeeAvailableOnDay(employee2, move.fromDay());
+	/**
+	 * Generalizes the rule for exchanges to moves changing any number of days: a move is forbidden if the employees
+	 * deviate more from the number of days they should work at free days than before. A missing employee has no such
+	 * number and always counts as getting closer to it.
+	 */
+	private boolean isDeviationFromFreeDaysIncreased(Solution currentSolution, Move move) {
+		double changeOfDeviation = 0;
+
+		for (int index = 0; index < move.size(); index++) {
+			if (!problemInstance.isFreeDay(move.getDay(index))) {
+				continue;
+			}
+			int oldEmployee = currentSolution.getEmployeeForDay(move.getDay(index));
+			if (isFirstFreeDayOfEmployeeInMove(currentSolution, move, oldEmployee, index)) {
+				changeOfDeviation += getChangeOfDeviation(currentSolution, move, oldEmployee);
+			}
+			int newEmployee = move.getEmployee(index);
+			if (isFirstFreeDayOfEmployeeInMove(currentSolution, move, newEmployee, index)) {
+				changeOfDeviation += getChangeOfDeviation(currentSolution, move, newEmployee);
+			}
+		}
+		return changeOfDeviation > 0;
+	}
 
-		return !(employee1AvailableAtToDay && employee2AvailableAtFromDay);
+	private boolean isFirstFreeDayOfEmployeeInMove(Solution currentSolution, Move move, int employee, int index) {
+		for (int previousIndex = 0; previousIndex < index; previousIndex++) {
+			int day = move.getDay(previousIndex);
+			if (problemInstance.isFreeDay(day) && (currentSolution.getEmployeeForDay(day) == employee
+					|| move.getEmployee(previousIndex) == employee)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
-	private boolean isAtLeastOneEmployeeFixed(Solution currentSolution, Move move) {
-		return isEmployeeFixedOnDay(currentSolution, move.fromDay())
-				|| isEmployeeFixedOnDay(currentSolution, move.toDay());
+	private double getChangeOfDeviation(Solution currentSolution, Move move, int employee) {
+		int changeOfFreeDays = 0;
+		for (int index = 0; index < move.size(); index++) {
+			int day = move.getDay(index);
+			if (problemInstance.isFreeDay(day)) {
+				changeOfFreeDays -= currentSolution.getEmployeeForDay(day) == employee ? 1 : 0;
+				changeOfFreeDays += move.getEmployee(index) == employee ? 1 : 0;
+			}
+		}
+
+		if (employee == Config.MISSING_EMPLOYEE) {
+			return -Math.abs(changeOfFreeDays);
+		}
+		int freeDays = currentSolution.getNumberOfFreeDaysForEmployee(employee);
+		double wishedFreeDays = problemInstance.getDaysToWorkAtFreeDayForEmployee(employee);
+		return Math.abs(freeDays + changeOfFreeDays - wishedFreeDays) - Math.abs(freeDays - wishedFreeDays);
 	}
 
-	private boolean isEmployeeFixedOnDay(Solution currentSolution, int day) {
-		int fixedEmployee = spreadsheetReader.getEmployeeOnFixedDay(day);
-		if (fixedEmployee == Config.MISSING_EMPLOYEE) {
-			return false;
+	/**
+	 * Returns all days whose employee may be moved, i.e. all days except those on which the fixed employee is already
+	 * working.
+	 */
+	public long getMovableDays(Solution currentSolution) {
+		long fixedDays = 0;
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			fixedDays |= currentSolution.getWorkingDaysOfEmployee(employee)
+					& problemInstance.getFixedDaysOfEmployee(employee);
+		}
+		return problemInstance.getDaysOfMonth() & ~fixedDays;
+	}
+
+	/**
+	 * Returns all days among the movable days which can be exchanged with the given day without violating a fixed day
+	 * or the availability of one of both employees. Days of the same employee are excluded, as exchanging them would
+	 * not change the solution.
+	 */
+	public long getCompatibleDays(Solution currentSolution, long movableDays, int fromDay) {
+		int employee = currentSolution.getEmployeeForDay(fromDay);
+		long daysOfEmployeesAvailableOnFromDay = currentSolution.getDaysWithoutEmployee();
+
+		for (int otherEmployee = 0; otherEmployee < Config.NUMBER_OF_EMPLOYEES; otherEmployee++) {
+			if (problemInstance.isEmployeeAvailableOnDay(otherEmployee, fromDay)) {
+				daysOfEmployeesAvailableOnFromDay |= currentSolution.getWorkingDaysOfEmployee(otherEmployee);
+			}
 		}
-		return currentSolution.getEmployeeForDay(day) == fixedEmployee;
-}}
+		return movableDays & daysOfEmployeesAvailableOnFromDay & problemInstance.getAvailableDaysOfEmployee(employee)
+				& ~currentSolution.getWorkingDaysOfEmployee(employee);
+	}
+
+	private boolean isAtLeastOneEmployeeUnavailable(int employee1, int fromDay, int employee2, int toDay) {
+		boolean employee1AvailableAtToDay = (problemInstance.getAvailableDaysOfEmployee(employee1) & (1L << toDay)) != 0;
+		boolean employee2AvailableAtFromDay = (problemInstance.getAvailableDaysOfEmployee(employee2) & (1L << fromDay)) != 0;
+
+		return !(employee1AvailableAtToDay && employee2AvailableAtFromDay);
+	}
+
+	private boolean isAtLeastOneEmployeeFixed(int employee1, int fromDay, int employee2, int toDay) {
+		return (problemInstance.getFixedDaysOfEmployee(employee1) & (1L << fromDay)) != 0
+				|| (problemInstance.getFixedDaysOfEmployee(employee2) & (1L << toDay)) != 0;
+	}
+}
@@ -0,0 +1,112 @@
+package scheduling.tabuSearch;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.SplittableRandom;
+
+import scheduling.common.Solution;
+
+/**
+ * Evaluates the sampled neighborhood of one tabu search on a fork/join pool. The samples are split into chunks, every
+ * chunk samples and scores its moves with its own buffers and the best moves of the chunks are reduced to the best one.
+ * The solution is only read while the neighborhood is evaluated, so all of its cached costs have to be known before.
+ * Every chunk draws its moves from its own generator derived from the given seed, so that the result does not depend
+ * on the order in which the chunks are run.
+ */
+public class ParallelNeighborhoodEvaluator {
+	private static final int SAMPLES_PER_TASK = 16;
+
+	private final ForkJoinPool forkJoinPool;
+	private final MoveSampler moveSampler;
+	private final TabuList tabuList;
+	private final int lengthOfMonth;
+
+	public ParallelNeighborhoodEvaluator(ForkJoinPool forkJoinPool, MoveSampler moveSampler, TabuList tabuList,
+			int lengthOfMonth) {
+		this.forkJoinPool = forkJoinPool;
+		this.moveSampler = moveSampler;
+		this.tabuList = tabuList;
+		this.lengthOfMonth = lengthOfMonth;
+	}
+
+	/**
+	 * Copies the best admissible move among the samples into the given move and returns the number of admissible
+	 * moves. If there is none, the given move is left unchanged.
+	 */
+	public int evaluate(Solution currentSolution, double costsOfBestSolution, long movableDays, int numberOfSamples,
+			long seed, Move bestMove) {
+		currentSolution.getCosts();
+		Result result = forkJoinPool.invoke(new EvaluationTask(currentSolution, costsOfBestSolution, movableDays, seed,
+				0, numberOfSamples));
+
+		if (result.numberOfCandidates() > 0) {
+			bestMove.copyFrom(result.move());
+		}
+		return result.numberOfCandidates();
+	}
+
+	private record Result(Move move, double costs, int numberOfCandidates) {
+		private Result merge(Result other) {
+			Result better = other.costs() < costs ? other : this;
+			return new Result(better.move(), better.costs(), numberOfCandidates + other.numberOfCandidates());
+		}
+	}
+
+	private class EvaluationTask extends RecursiveTask<Result> {
+		private final Solution currentSolution;
+		private final double costsOfBestSolution;
+		private final long movableDays;
+		private final long seed;
+		private final int firstSample;
+		private final int endOfSamples;
+
+		private EvaluationTask(Solution currentSolution, double costsOfBestSolution, long movableDays, long seed,
+				int firstSample, int endOfSamples) {
+			this.currentSolution = currentSolution;
+			this.costsOfBestSolution = costsOfBestSolution;
+			this.movableDays = movableDays;
+			this.seed = seed;
+			this.firstSample = firstSample;
+			this.endOfSamples = endOfSamples;
+		}
+
+		@Override
+		protected Result compute() {
+			if (endOfSamples - firstSample <= SAMPLES_PER_TASK) {
+				return evaluateSamples();
+			}
+
+			int middle = (firstSample + endOfSamples) >>> 1;
+			EvaluationTask secondHalf = new EvaluationTask(currentSolution, costsOfBestSolution, movableDays, seed,
+					middle, endOfSamples);
+			secondHalf.fork();
+			Result firstResult = new EvaluationTask(currentSolution, costsOfBestSolution, movableDays, seed,
+					firstSample, middle).compute();
+			return firstResult.merge(secondHalf.join());
+		}
+
+		private Result evaluateSamples() {
+			SplittableRandom random = new SplittableRandom(seed + firstSample);
+			Move candidateMove = new Move(lengthOfMonth);
+			Move bestMove = new Move(lengthOfMonth);
+			double bestMoveCost = Double.MAX_VALUE;
+			int numberOfCandidates = 0;
+
+			for (int i = firstSample; i < endOfSamples; i++) {
+				if (!moveSampler.sample(currentSolution, movableDays, random, candidateMove)) continue;
+
+				final double neighborCost = candidateMove.getCostsAfterMove(currentSolution);
+
+				final boolean isTabu = tabuList.contains(candidateMove);
+				if (isTabu && neighborCost >= costsOfBestSolution) continue;
+
+				numberOfCandidates++;
+				if (neighborCost < bestMoveCost) {
+					bestMoveCost = neighborCost;
+					bestMove.copyFrom(candidateMove);
+				}
+			}
+			return new Result(bestMove, bestMoveCost, numberOfCandidates);
+		}
+	}
+}
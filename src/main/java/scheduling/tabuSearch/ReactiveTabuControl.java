@@ -0,0 +1,152 @@
+package scheduling.tabuSearch;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import scheduling.common.Config;
+import scheduling.common.Solution;
+
+/**
+ * Adapts the parameters of the tabu search to the state of the search. Every visited solution is identified by a
+ * Zobrist hash, which is updated incrementally with every move. If the search returns to a solution it has already
+ * visited, the tenure grows, so that the search is pushed out of the cycle. If no solution repeats for longer than the
+ * average cycle, the tenure slowly shrinks again. The number of sampled moves per iteration is a fixed share of all
+ * exchanges of two days and grows with the share of samples which turn out not to be admissible.
+ */
+public class ReactiveTabuControl {
+	private static final long SEED_OF_HASHES = 0x5DEECE66DL;
+	private static final double TENURE_INCREASE = 1.1;
+	private static final double TENURE_DECREASE = 0.9;
+	private static final int MIN_TENURE = 1;
+	private static final int CAPACITY_OF_VISITED_SOLUTIONS = 1 << 16;
+	private static final long NO_SOLUTION = 0;
+	private static final double WEIGHT_OF_NEW_OBSERVATION = 0.1;
+	private static final double MIN_ACCEPTANCE_RATE = 0.1;
+	private static final int MAX_LENGTH_OF_MONTH = 31;
+
+	private final TabuList tabuList;
+	private final int lengthOfMonth;
+	private final int maxTenure;
+	private final long[] hashOfEmployeeOnDay;
+	private final long[] visitedSolutions;
+	private final int[] iterationOfVisit;
+	private final int targetNumberOfCandidates;
+	private long hash;
+	private int numberOfVisitedSolutions;
+	private int iteration;
+	private int iterationOfLastTenureChange;
+	private double averageCycleLength;
+	private double acceptanceRate;
+
+	public ReactiveTabuControl(TabuList tabuList, int lengthOfMonth) {
+		this.tabuList = tabuList;
+		this.lengthOfMonth = lengthOfMonth;
+		this.maxTenure = Math.max(MIN_TENURE, lengthOfMonth * (lengthOfMonth - 1) / 4);
+		this.hashOfEmployeeOnDay = new long[lengthOfMonth * (Config.NUMBER_OF_EMPLOYEES + 1)];
+		this.visitedSolutions = new long[CAPACITY_OF_VISITED_SOLUTIONS];
+		this.iterationOfVisit = new int[CAPACITY_OF_VISITED_SOLUTIONS];
+
+		SplittableRandom random = new SplittableRandom(SEED_OF_HASHES);
+		for (int index = 0; index < hashOfEmployeeOnDay.length; index++) {
+			hashOfEmployeeOnDay[index] = random.nextLong();
+		}
+
+		int numberOfExchanges = lengthOfMonth * (lengthOfMonth - 1);
+		this.targetNumberOfCandidates = Math.max(1, (int) Math.ceil((double) Config.TABU_SEARCH_NEIGHBORHOOD_SAMPLE_SIZE
+				* numberOfExchanges / (MAX_LENGTH_OF_MONTH * (MAX_LENGTH_OF_MONTH - 1))));
+		this.acceptanceRate = 1;
+		this.averageCycleLength = lengthOfMonth;
+	}
+
+	/**
+	 * Starts over with the given solution, e.g. after the search has fallen back to a previous solution.
+	 */
+	public void reset(Solution solution) {
+		hash = 0;
+		for (int day = 0; day < lengthOfMonth; day++) {
+			hash ^= getHashOfEmployeeOnDay(solution.getEmployeeForDay(day), day);
+		}
+		Arrays.fill(visitedSolutions, NO_SOLUTION);
+		numberOfVisitedSolutions = 0;
+		iterationOfLastTenureChange = iteration;
+		registerSolution();
+	}
+
+	/**
+	 * Has to be called for every day changed by a move, with the employees before and after the move.
+	 */
+	public void changedEmployeeOnDay(int day, int oldEmployee, int newEmployee) {
+		hash ^= getHashOfEmployeeOnDay(oldEmployee, day) ^ getHashOfEmployeeOnDay(newEmployee, day);
+	}
+
+	/**
+	 * Has to be called after all changed days of a move have been reported.
+	 */
+	public void appliedMove() {
+		iteration++;
+		registerSolution();
+	}
+
+	public int getNumberOfSamples() {
+		double expectedAcceptanceRate = Math.max(acceptanceRate, MIN_ACCEPTANCE_RATE);
+		return (int) Math.ceil(targetNumberOfCandidates / expectedAcceptanceRate);
+	}
+
+	/**
+	 * Records how many of the sampled moves have been admissible, i.e. legal and not tabu or better than the best
+	 * solution.
+	 */
+	public void sampledMoves(int numberOfSamples, int numberOfCandidates) {
+		if (numberOfSamples > 0) {
+			acceptanceRate = (1 - WEIGHT_OF_NEW_OBSERVATION) * acceptanceRate
+					+ WEIGHT_OF_NEW_OBSERVATION * numberOfCandidates / numberOfSamples;
+		}
+	}
+
+	private void registerSolution() {
+		int previousVisit = visit(hash == NO_SOLUTION ? 1 : hash);
+
+		if (previousVisit >= 0) {
+			int cycleLength = iteration - previousVisit;
+			averageCycleLength = (1 - WEIGHT_OF_NEW_OBSERVATION) * averageCycleLength
+					+ WEIGHT_OF_NEW_OBSERVATION * cycleLength;
+			int tenure = tabuList.getTenure();
+			tabuList.setTenure(Math.min(maxTenure, Math.max(tenure + 1, (int) Math.ceil(tenure * TENURE_INCREASE))));
+			iterationOfLastTenureChange = iteration;
+		} else if (iteration - iterationOfLastTenureChange > averageCycleLength) {
+			int tenure = tabuList.getTenure();
+			tabuList.setTenure(Math.max(MIN_TENURE, Math.min(tenure - 1, (int) (tenure * TENURE_DECREASE))));
+			iterationOfLastTenureChange = iteration;
+		}
+	}
+
+	/**
+	 * Stores the current iteration for the solution and returns the iteration of its previous visit or -1. The hashes
+	 * are kept in an open addressing table, which is cleared when it gets full, so only recent cycles are detected.
+	 */
+	private int visit(long solutionHash) {
+		if (numberOfVisitedSolutions >= CAPACITY_OF_VISITED_SOLUTIONS / 2) {
+			Arrays.fill(visitedSolutions, NO_SOLUTION);
+			numberOfVisitedSolutions = 0;
+		}
+
+		int mask = CAPACITY_OF_VISITED_SOLUTIONS - 1;
+		int index = (int) (solutionHash ^ (solutionHash >>> 32)) & mask;
+		while (visitedSolutions[index] != NO_SOLUTION && visitedSolutions[index] != solutionHash) {
+			index = (index + 1) & mask;
+		}
+
+		int previousVisit = visitedSolutions[index] == solutionHash ? iterationOfVisit[index] : -1;
+		if (previousVisit < 0) {
+			visitedSolutions[index] = solutionHash;
+			numberOfVisitedSolutions++;
+		}
+		iterationOfVisit[index] = iteration;
+		return previousVisit;
+	}
+
+	private long getHashOfEmployeeOnDay(int employee, int day) {
+		int slot = employee == Config.MISSING_EMPLOYEE ? Config.NUMBER_OF_EMPLOYEES : employee;
+		return hashOfEmployeeOnDay[day * (Config.NUMBER_OF_EMPLOYEES + 1) + slot];
+	}
+}
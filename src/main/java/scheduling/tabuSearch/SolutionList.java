@@ -1,40 +1,47 @@
 package scheduling.tabuSearch;
 
 import scheduling.common.Solution;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Iterator;
-import java.util.Optional;
 
+/**
+ * Keeps copies of the latest best solutions of a tabu search in a ring of buffers. The buffers are created with the
+ * first solutions and overwritten afterwards, starting with the oldest one.
+ */
 public class SolutionList {
 
-	private final Deque<Solution> solutions;
-	private final int capacity;
+	private final Solution[] solutions;
+	private int numberOfSolutions;
+	private int indexOfLatestSolution;
 
 	public SolutionList(int length) {
-		this.solutions = new ArrayDeque<>(length);
-		this.capacity = length;
+		this.solutions = new Solution[length];
+		this.numberOfSolutions = 0;
+		this.indexOfLatestSolution = -1;
 	}
 
 	public void add(Solution solution) {
-		if (capacity == 0) {
+		if (solutions.length == 0) {
 			return;
 		}
-		if (solutions.size() >= capacity) {
-			solutions.removeFirst();
+		indexOfLatestSolution = (indexOfLatestSolution + 1) % solutions.length;
+		if (solutions[indexOfLatestSolution] == null) {
+			solutions[indexOfLatestSolution] = solution.createCopy();
+		} else {
+			solutions[indexOfLatestSolution].copyFrom(solution);
 		}
-		solutions.addLast(solution);
+		numberOfSolutions = Math.min(numberOfSolutions + 1, solutions.length);
 	}
 
-	public Optional<Solution> getPreviousSolution() {
-		Iterator<Solution> descendingIterator = solutions.descendingIterator();
-
-		while (descendingIterator.hasNext()) {
-			Solution solution = descendingIterator.next();
-			if (solution != null && solution.canBeRetried()) {
-				return Optional.of(solution);
+	/**
+	 * Returns the latest solution which can still be retried, or null if there is none. The solution stays in the
+	 * list and must not be changed.
+	 */
+	public Solution getPreviousSolution() {
+		for (int age = 0; age < numberOfSolutions; age++) {
+			Solution solution = solutions[(indexOfLatestSolution - age + solutions.length) % solutions.length];
+			if (solution.canBeRetried()) {
+				return solution;
 			}
 		}
-		return Optional.empty();
+		return null;
 	}
-}
\ No newline at end of file
+}
@@ -1,44 +1,97 @@
 package scheduling.tabuSearch;
 
-import java.util.ArrayDeque;
-import java.util.HashSet;
-import java.util.Queue;
-import java.util.Set;
+import java.util.Arrays;
 
-public class TabuList {
-	private final int capacity;
-	private final Queue<Move> moveQueue;
-	private final Set<Move> moveSet;
+import scheduling.common.Config;
+import scheduling.common.Solution;
 
-	private static final float LOAD_FACTOR = 0.5f;
+/**
+ * Remembers for every pair of days until which move the exchange of both days is tabu. Exchanging day a with day b is
+ * the same as exchanging b with a, so both directions share one entry. Checking and adding a move does not allocate and
+ * old moves never have to be evicted explicitly. For all other kinds of moves, the employees which have been removed
+ * from a day may not return to it while they are tabu.
+ */
+public class TabuList {
+	private final int lengthOfMonth;
+	private final int[] tabuUntilMove;
+	private final int[] tabuUntilMoveOfEmployeeOnDay;
+	private int tenure;
+	private int numberOfMoves;
 
-	public TabuList(int length) {
-		int capacityOfSet = (int) (Math.ceil(length / LOAD_FACTOR)) + 1;
-		this.capacity = length;
-		this.moveQueue = new ArrayDeque<>(length);
-		this.moveSet = new HashSet<>(capacityOfSet, LOAD_FACTOR);
+	public TabuList(int lengthOfMonth, int tenure) {
+		this.lengthOfMonth = lengthOfMonth;
+		this.tabuUntilMove = new int[lengthOfMonth * lengthOfMonth];
+		this.tabuUntilMoveOfEmployeeOnDay = new int[lengthOfMonth * (Config.NUMBER_OF_EMPLOYEES + 1)];
+		this.numberOfMoves = 0;
+		setTenure(tenure);
 	}
 
-	public void add(Move move) {
-		if (capacity == 0) {
+	/**
+	 * Has to be called before the move is applied to the solution, as the employees removed by the move become tabu.
+	 */
+	public void add(Solution solutionBeforeMove, Move move) {
+		if (move.getKind() == MoveKind.EXCHANGE) {
+			add(move.getFromDay(), move.getToDay());
 			return;
 		}
 
-		if (moveQueue.size() >= capacity) {
-			Move oldestMove = moveQueue.poll();
-			moveSet.remove(oldestMove);
+		numberOfMoves++;
+		for (int index = 0; index < move.size(); index++) {
+			int day = move.getDay(index);
+			tabuUntilMoveOfEmployeeOnDay[getIndexOfEmployee(solutionBeforeMove.getEmployeeForDay(day), day)] =
+					numberOfMoves + tenure;
 		}
+	}
 
-		moveQueue.add(move);
-		moveSet.add(move);
+	public void add(int fromDay, int toDay) {
+		numberOfMoves++;
+		tabuUntilMove[getIndex(fromDay, toDay)] = numberOfMoves + tenure;
 	}
 
 	public boolean contains(Move move) {
-		return moveSet.contains(move);
+		if (move.getKind() == MoveKind.EXCHANGE) {
+			return contains(move.getFromDay(), move.getToDay());
+		}
+
+		for (int index = 0; index < move.size(); index++) {
+			if (numberOfMoves < tabuUntilMoveOfEmployeeOnDay[getIndexOfEmployee(move.getEmployee(index),
+					move.getDay(index))]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean contains(int fromDay, int toDay) {
+		return numberOfMoves < tabuUntilMove[getIndex(fromDay, toDay)];
+	}
+
+	/**
+	 * Sets the number of following moves for which a move stays tabu. It applies to all moves added from now on.
+	 */
+	public void setTenure(int tenure) {
+		if (tenure < 0) {
+			throw new IllegalArgumentException("Tenure must not be negative");
+		}
+		this.tenure = tenure;
+	}
+
+	public int getTenure() {
+		return tenure;
 	}
 
 	public void reset() {
-		moveQueue.clear();
-		moveSet.clear();
+		Arrays.fill(tabuUntilMove, 0);
+		Arrays.fill(tabuUntilMoveOfEmployeeOnDay, 0);
+		numberOfMoves = 0;
+	}
+
+	private int getIndex(int fromDay, int toDay) {
+		return fromDay < toDay ? fromDay * lengthOfMonth + toDay : toDay * lengthOfMonth + fromDay;
+	}
+
+	private int getIndexOfEmployee(int employee, int day) {
+		int slot = employee == Config.MISSING_EMPLOYEE ? Config.NUMBER_OF_EMPLOYEES : employee;
+		return day * (Config.NUMBER_OF_EMPLOYEES + 1) + slot;
 	}
 }
@@ -1,132 +1,289 @@
 package scheduling.tabuSearch;
 
 import scheduling.common.Config;
+import scheduling.common.ImprovementEngine;
+import scheduling.common.ProblemInstance;
 import scheduling.common.Solution;
 import scheduling.common.ThreadsController;
-import scheduling.spreadsheet.SpreadsheetReader;
+import scheduling.matching.WindowRepair;
 
-import java.util.Optional;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
 
-public class TabuSearch {
-
-	private record EvaluatedMove(Move move, double solutionCosts) {
-		boolean isEmpty() { return move == null; }
-	}
+public class TabuSearch implements ImprovementEngine {
 
 	private final TabuList tabuList;
 	private final SolutionList solutionList;
 	private final ThreadsController threadsController;
-	private final SpreadsheetReader spreadsheetReader;
+	private final RandomGenerator random;
+	private final ProblemInstance problemInstance;
 	private final MoveValidator moveValidator;
+	private final MoveSampler moveSampler;
+	private final ReactiveTabuControl reactiveTabuControl;
+	private final ParallelNeighborhoodEvaluator parallelNeighborhoodEvaluator;
+	private final EliteBoard eliteBoard;
+	private final int island;
+	private final WindowRepair windowRepair;
+	private final SplittableRandom randomOfRepair;
+	private final Move candidateMove;
+	private final Move bestMove;
+	private final Move repairMove;
+	private final int maxRetries;
+	private long numberOfEvaluations;
 
-	public TabuSearch(ThreadsController threadsController) {
-		this.tabuList = new TabuList(Config.LENGTH_OF_TABU_LIST);
+	/**
+	 * Creates a tabu search for the parallel search with the given index, which ends after the given share of the
+	 * configured iterations without improvement and samples its moves with the given generator, which must not be
+	 * shared with other threads.
+	 */
+	public TabuSearch(ThreadsController threadsController, int search, double shareOfBudget, RandomGenerator random) {
+		this.maxRetries = Math.max(1, (int) (Config.MAX_RETRIES_OF_TABU_SEARCH * shareOfBudget));
 		this.solutionList = new SolutionList(Config.LENGTH_OF_SOLUTION_LIST);
 		this.threadsController = threadsController;
-		this.spreadsheetReader = threadsController.getSpreadsheetReader();
-		this.moveValidator = new MoveValidator(spreadsheetReader);
+		this.random = random;
+		this.problemInstance = threadsController.getProblemInstance();
+		this.tabuList = new TabuList(problemInstance.getLengthOfMonth(), Config.LENGTH_OF_TABU_LIST);
+		this.moveValidator = new MoveValidator(problemInstance);
+		this.moveSampler = new MoveSampler(problemInstance, moveValidator, Config.EXTENDED_MOVES);
+		this.reactiveTabuControl = Config.REACTIVE_TABU_SEARCH
+				? new ReactiveTabuControl(tabuList, problemInstance.getLengthOfMonth())
+				: null;
+		this.parallelNeighborhoodEvaluator = Config.PARALLEL_NEIGHBORHOOD
+				? new ParallelNeighborhoodEvaluator(ForkJoinPool.commonPool(), moveSampler, tabuList,
+						problemInstance.getLengthOfMonth())
+				: null;
+		this.eliteBoard = Config.ISLAND_MODEL ? threadsController.getEliteBoard() : null;
+		this.island = search;
+		this.windowRepair = Config.WINDOW_REPAIR ? new WindowRepair(problemInstance) : null;
+		this.randomOfRepair = Config.WINDOW_REPAIR ? new SplittableRandom(random.nextLong()) : null;
+		this.candidateMove = new Move(problemInstance.getLengthOfMonth());
+		this.bestMove = new Move(problemInstance.getLengthOfMonth());
+		this.repairMove = new Move(problemInstance.getLengthOfMonth());
 	}
 
+	/**
+	 * Improves a copy of the given solution. The current and the best solution of the search are buffers which are
+	 * overwritten in place, so that the iterations do not allocate; only solutions which are published are copied.
+	 */
+	@Override
 	public Solution run(final Solution initialSolution) {
-		Solution bestSolution = initialSolution;
-		Solution currentSolution = bestSolution.createCopy();
+		Solution bestSolution = initialSolution.createCopy();
+		Solution currentSolution = initialSolution.createCopy();
 		solutionList.add(bestSolution);
+		publish(bestSolution);
+		resetReactiveTabuControl(currentSolution);
 		int iterationsWithoutImprovement = 0;
 
-		while (iterationsWithoutImprovement < Config.MAX_RETRIES_OF_TABU_SEARCH) {
+		while (iterationsWithoutImprovement < maxRetries) {
 			if (isSearchFinished(bestSolution)) {
 				return bestSolution;
 			}
 
-			EvaluatedMove bestEvaluatedMove = findBestNeighborMove(currentSolution, bestSolution);
-
-			if (bestEvaluatedMove.isEmpty()) {
-				Optional<Solution> stagnationSolution = handleSearchStagnation();
-				if (stagnationSolution.isEmpty()) return bestSolution;
+			if (!findBestNeighborMove(currentSolution, bestSolution)) {
+				Solution stagnationSolution = getStagnationSolution();
+				if (stagnationSolution == null) return bestSolution;
 
-				currentSolution = stagnationSolution.get();
+				tabuList.reset();
+				currentSolution.copyFrom(stagnationSolution);
+				if (currentSolution.getCosts() < bestSolution.getCosts()) {
+					bestSolution.copyFrom(currentSolution);
+					solutionList.add(bestSolution);
+				}
+				resetReactiveTabuControl(currentSolution);
 				iterationsWithoutImprovement++;
 				continue;
 			}
 
-			applyMove(currentSolution, bestEvaluatedMove);
+			applyMove(currentSolution, bestMove);
 
 			if (currentSolution.getCosts() < bestSolution.getCosts()) {
-				bestSolution = currentSolution.createCopy();
+				bestSolution.copyFrom(currentSolution);
 				solutionList.add(bestSolution);
+				publish(bestSolution);
 				iterationsWithoutImprovement = 0;
 			} else {
 				iterationsWithoutImprovement++;
+
+				if (isRepairDue(iterationsWithoutImprovement) && repairWindow(currentSolution)
+						&& currentSolution.getCosts() < bestSolution.getCosts()) {
+					bestSolution.copyFrom(currentSolution);
+					solutionList.add(bestSolution);
+					publish(bestSolution);
+					iterationsWithoutImprovement = 0;
+					continue;
+				}
+
+				Solution immigrant = getImmigrant(bestSolution, iterationsWithoutImprovement);
+				if (immigrant != null) {
+					bestSolution.copyFrom(immigrant);
+					solutionList.add(bestSolution);
+					currentSolution.copyFrom(immigrant);
+					tabuList.reset();
+					resetReactiveTabuControl(currentSolution);
+				}
 			}
 		}
 		return bestSolution;
 	}
 
-	private EvaluatedMove findBestNeighborMove(Solution currentSolution, Solution bestSolution) {
-		Move bestMove = null;
-		final double originalCost = currentSolution.getCosts();
-		double bestMoveCost = Double.MAX_VALUE;
+	@Override
+	public long getNumberOfEvaluations() {
+		return numberOfEvaluations;
+	}
+
+	private boolean findBestNeighborMove(Solution currentSolution, Solution bestSolution) {
+		long movableDays = moveValidator.getMovableDays(currentSolution);
+		int numberOfSamples = reactiveTabuControl == null
+				? Config.TABU_SEARCH_NEIGHBORHOOD_SAMPLE_SIZE
+				: reactiveTabuControl.getNumberOfSamples();
+		int numberOfCandidates = parallelNeighborhoodEvaluator == null
+				? evaluateNeighborhood(currentSolution, bestSolution.getCosts(), movableDays, numberOfSamples)
+				: parallelNeighborhoodEvaluator.evaluate(currentSolution, bestSolution.getCosts(), movableDays,
+						numberOfSamples, random.nextLong(), bestMove);
+
+		numberOfEvaluations += numberOfSamples;
 
-		for (int i = 0; i < Config.TABU_SEARCH_NEIGHBORHOOD_SAMPLE_SIZE; i++) {
-			Move potentialMove = generateRandomMove();
+		if (reactiveTabuControl != null) {
+			reactiveTabuControl.sampledMoves(numberOfSamples, numberOfCandidates);
+		}
+		return numberOfCandidates > 0;
+	}
 
-			if (moveValidator.isMoveForbidden(currentSolution, potentialMove)) continue;
+	private int evaluateNeighborhood(Solution currentSolution, double costsOfBestSolution, long movableDays,
+			int numberOfSamples) {
+		double bestMoveCost = Double.MAX_VALUE;
+		int numberOfCandidates = 0;
 
-			final double neighborCost = getNeighborCost(currentSolution, potentialMove);
+		for (int i = 0; i < numberOfSamples; i++) {
+			if (!moveSampler.sample(currentSolution, movableDays, random, candidateMove)) continue;
 
-			final boolean isTabu = tabuList.contains(potentialMove);
-			if (isTabu && neighborCost >= bestSolution.getCosts()) continue;
+			final double neighborCost = candidateMove.getCostsAfterMove(currentSolution);
 
+			final boolean isTabu = tabuList.contains(candidateMove);
+			if (isTabu && neighborCost >= costsOfBestSolution) continue;
+
+			numberOfCandidates++;
 			if (neighborCost < bestMoveCost) {
 				bestMoveCost = neighborCost;
-				bestMove = potentialMove;
+				bestMove.copyFrom(candidateMove);
 			}
 		}
-		currentSolution.setSolutionCosts(originalCost);
-		return new EvaluatedMove(bestMove, bestMoveCost);
+		return numberOfCandidates;
 	}
 
-	private double getNeighborCost(Solution currentSolution, Move potentialMove) {
-		currentSolution.exchangeEmployeesOnDays(potentialMove.fromDay(), potentialMove.toDay());
-		final double neighborCost = currentSolution.getCosts();
-		currentSolution.exchangeEmployeesOnDays(potentialMove.fromDay(), potentialMove.toDay());
-		return neighborCost;
+	private void applyMove(Solution solution, Move move) {
+			tabuList.add(solution, move);
+
+			if (reactiveTabuControl != null) {
+				for (int index = 0; index < move.size(); index++) {
+					int day = move.getDay(index);
+					reactiveTabuControl.changedEmployeeOnDay(day, solution.getEmployeeForDay(day), move.getEmployee(index));
+				}
+			}
+
+			move.applyTo(solution, problemInstance);
+
+			if (reactiveTabuControl != null) {
+				reactiveTabuControl.appliedMove();
+			}
 	}
 
-	private void applyMove(Solution solution, EvaluatedMove evaluatedMove) {
-			Move move = evaluatedMove.move();
-			tabuList.add(move);
+	private boolean isRepairDue(int iterationsWithoutImprovement) {
+		return windowRepair != null && iterationsWithoutImprovement % Config.REPAIR_INTERVAL == 0;
+	}
 
-			if (spreadsheetReader.isFreeDay(move.fromDay()) != spreadsheetReader.isFreeDay(move.toDay())) {
-				solution.exchangeFreeDayBetweenEmployees(move.fromDay(), move.toDay());
+	/**
+	 * Repairs either a random window of consecutive days or all days of some random employees and applies the repair
+	 * if it lowers the costs of the current solution. Returns whether it has been applied.
+	 */
+	private boolean repairWindow(Solution currentSolution) {
+		long window = random.nextBoolean() ? getRandomWindowOfDays() : getDaysOfRandomEmployees(currentSolution);
+		int[] repairedEmployeeOnDay = windowRepair.repair(currentSolution, window, randomOfRepair);
+		if (repairedEmployeeOnDay == null) {
+			return false;
+		}
+
+		repairMove.reset(MoveKind.WINDOW_REPAIR);
+		for (int day = 0; day < problemInstance.getLengthOfMonth(); day++) {
+			if (repairedEmployeeOnDay[day] != currentSolution.getEmployeeForDay(day)) {
+				repairMove.add(day, repairedEmployeeOnDay[day]);
 			}
+		}
+		numberOfEvaluations++;
+		if (repairMove.size() == 0 || repairMove.getCostsAfterMove(currentSolution) >= currentSolution.getCosts()) {
+			return false;
+		}
 
-			solution.exchangeEmployeesOnDays(move.fromDay(), move.toDay());
-			solution.setSolutionCosts(evaluatedMove.solutionCosts());
+		applyMove(currentSolution, repairMove);
+		return true;
 	}
 
-	private Optional<Solution> handleSearchStagnation() {
-		return solutionList.getPreviousSolution()
-				.map(previousSolution -> {
-					tabuList.reset();
-					return previousSolution.createCopy();
-				});
+	private long getRandomWindowOfDays() {
+		int lengthOfMonth = problemInstance.getLengthOfMonth();
+		int lengthOfWindow = Math.min(Math.max(2, Config.LENGTH_OF_REPAIR_WINDOW), lengthOfMonth);
+		int firstDay = random.nextInt(lengthOfMonth - lengthOfWindow + 1);
+		return ((1L << lengthOfWindow) - 1) << firstDay;
 	}
 
-	private boolean isSearchFinished(Solution bestSolution) {
-		return threadsController.isStopped() || bestSolution.getCosts() == Config.OPTIMAL_SOLUTION;
+	private long getDaysOfRandomEmployees(Solution currentSolution) {
+		long days = 0;
+		for (int i = 0; i < Config.EMPLOYEES_PER_REPAIR; i++) {
+			int day = random.nextInt(problemInstance.getLengthOfMonth());
+			int employee = currentSolution.getEmployeeForDay(day);
+			days |= employee == Config.MISSING_EMPLOYEE ? 0 : currentSolution.getWorkingDaysOfEmployee(employee);
+		}
+		return days;
 	}
 
-	private Move generateRandomMove() {
-		int lengthOfMonth = spreadsheetReader.getLengthOfMonth();
-		int fromDay;
-		int toDay;
-		do {
-			fromDay = ThreadLocalRandom.current().nextInt(lengthOfMonth);
-			toDay = ThreadLocalRandom.current().nextInt(lengthOfMonth);
-		} while (fromDay == toDay);
+	private void resetReactiveTabuControl(Solution solution) {
+		if (reactiveTabuControl != null) {
+			reactiveTabuControl.reset(solution);
+		}
+	}
 
-		return new Move(fromDay, toDay);
+	/**
+	 * Publishes a copy of the best solution, since published solutions must not change anymore. Without the island
+	 * model, the copy is only made if the solution is better than the best solution of all searches.
+	 */
+	private void publish(Solution bestSolution) {
+		if (eliteBoard == null && !threadsController.isBetterThanBestSolution(bestSolution.getCosts())) {
+			return;
+		}
+		Solution publishedSolution = bestSolution.createCopy();
+		threadsController.publishSolution(publishedSolution);
+		if (eliteBoard != null) {
+			eliteBoard.publish(island, publishedSolution);
+		}
+	}
+
+	/**
+	 * Returns the best solution of all searches if this search has not improved for a whole migration interval and
+	 * another search has found a better solution meanwhile, or null otherwise. The iterations without improvement are
+	 * not reset, so that migration does not prolong the search.
+	 */
+	private Solution getImmigrant(Solution bestSolution, int iterationsWithoutImprovement) {
+		if (eliteBoard == null || iterationsWithoutImprovement % Config.MIGRATION_INTERVAL != 0) {
+			return null;
+		}
+		Solution bestSolutionOfAllSearches = eliteBoard.getBestSolution();
+		return bestSolutionOfAllSearches != null && bestSolutionOfAllSearches.getCosts() < bestSolution.getCosts()
+				? bestSolutionOfAllSearches
+				: null;
+	}
+
+	/**
+	 * Returns the solution to continue from after the search got stuck: a previous best solution of this search or,
+	 * in the island model, the best solution of all searches or the elite solution of another search. Returns null
+	 * if there is none. The solution must not be changed.
+	 */
+	private Solution getStagnationSolution() {
+		return eliteBoard != null
+				? eliteBoard.getBestOrRandomEliteSolution(island, random)
+				: solutionList.getPreviousSolution();
+	}
+
+	private boolean isSearchFinished(Solution bestSolution) {
+		return threadsController.isStopped() || bestSolution.getCosts() <= threadsController.getLowerBoundOfCosts();
 	}
 }
@@ -0,0 +1,287 @@
+package scheduling.branchAndBound;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
+import scheduling.common.SolutionCostMapper;
+import scheduling.common.ThreadsController;
+
+/**
+ * Compares the branch and bound search with a brute force enumeration of all schedules on tiny random rosters. Both
+ * work under the rules derived from the given solution: its fixed days keep their employee, nobody works more days
+ * than in total or than in the given solution, the number of free days of every employee deviates no more from the
+ * wished one than in the given solution and there are not more days without employee.
+ */
+class BranchAndBoundTest {
+	private static final long SEED = 42;
+	private static final int NUMBER_OF_ROSTERS = 100;
+	private static final int MIN_LENGTH_OF_MONTH = 6;
+	private static final int MAX_LENGTH_OF_MONTH = 8;
+	private static final int NUMBER_OF_WORKING_EMPLOYEES = 3;
+	private static final double TOLERANCE = 1e-6;
+	private static final long NODE_LIMIT = 4096;
+
+	@Test
+	void findsTheBestScheduleOfTheBruteForce() {
+		SplittableRandom random = new SplittableRandom(SEED);
+
+		for (int roster = 0; roster < NUMBER_OF_ROSTERS; roster++) {
+			int lengthOfMonth = random.nextInt(MIN_LENGTH_OF_MONTH, MAX_LENGTH_OF_MONTH + 1);
+			ProblemInstance problemInstance = createProblemInstance(random, lengthOfMonth,
+					NUMBER_OF_WORKING_EMPLOYEES);
+			Solution solution = createSolution(problemInstance, random);
+			Rules rules = new Rules(problemInstance, solution);
+
+			BranchAndBound branchAndBound = new BranchAndBound(createThreadsController(problemInstance), Long.MAX_VALUE,
+					Long.MAX_VALUE);
+			Solution result = branchAndBound.run(solution);
+
+			assertTrue(branchAndBound.isFinished(), "finished search of roster " + roster);
+			assertTrue(rules.allow(result), "valid schedule of roster " + roster);
+			assertEquals(rules.findBestCosts(), result.getCosts(), TOLERANCE, "costs of roster " + roster);
+			assertEquals(calculateCostsFromScratch(problemInstance, result), result.getCosts(), TOLERANCE,
+					"recalculated costs of roster " + roster);
+		}
+	}
+
+	@Test
+	void returnsTheSameScheduleAtTheNodeLimit() {
+		SplittableRandom random = new SplittableRandom(SEED + 1);
+		ProblemInstance problemInstance = createProblemInstance(random, 28, 8);
+		Solution solution = createSolution(problemInstance, random);
+
+		BranchAndBound branchAndBound = new BranchAndBound(createThreadsController(problemInstance), Long.MAX_VALUE,
+				NODE_LIMIT);
+		int[] employeeOnDay = getEmployeeOnDay(problemInstance, branchAndBound.run(solution));
+		assertFalse(branchAndBound.isFinished(), "search stopped at the node limit");
+		assertEquals(NODE_LIMIT, branchAndBound.getNumberOfEvaluations(), "number of nodes");
+
+		for (int run = 0; run < 3; run++) {
+			BranchAndBound repeatedBranchAndBound = new BranchAndBound(createThreadsController(problemInstance),
+					Long.MAX_VALUE, NODE_LIMIT);
+			assertArrayEquals(employeeOnDay, getEmployeeOnDay(problemInstance, repeatedBranchAndBound.run(solution)),
+					"schedule of run " + run);
+		}
+	}
+
+	/**
+	 * The rules of the search for the given solution, with an enumeration of all schedules which keep them.
+	 */
+	private static class Rules {
+		private final ProblemInstance problemInstance;
+		private final int[] fixedEmployeeOnDay;
+		private final int[] maxNumberOfDays;
+		private final int[] minNumberOfFreeDays;
+		private final int[] maxNumberOfFreeDays;
+		private final int maxNumberOfDaysWithoutEmployee;
+		private final int[] employeeOnDay;
+		private double bestCosts;
+
+		private Rules(ProblemInstance problemInstance, Solution solution) {
+			this.problemInstance = problemInstance;
+			this.fixedEmployeeOnDay = new int[problemInstance.getLengthOfMonth()];
+			this.maxNumberOfDays = new int[Config.NUMBER_OF_EMPLOYEES];
+			this.minNumberOfFreeDays = new int[Config.NUMBER_OF_EMPLOYEES];
+			this.maxNumberOfFreeDays = new int[Config.NUMBER_OF_EMPLOYEES];
+			this.maxNumberOfDaysWithoutEmployee = Long.bitCount(solution.getDaysWithoutEmployee());
+			this.employeeOnDay = new int[problemInstance.getLengthOfMonth()];
+
+			for (int day = 0; day < fixedEmployeeOnDay.length; day++) {
+				int employee = solution.getEmployeeForDay(day);
+				fixedEmployeeOnDay[day] = problemInstance.getEmployeeOnFixedDay(day) == employee ? employee
+						: Config.MISSING_EMPLOYEE;
+			}
+			for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+				int freeDays = solution.getNumberOfFreeDaysForEmployee(employee);
+				double mirroredFreeDays = 2 * problemInstance.getDaysToWorkAtFreeDayForEmployee(employee) - freeDays;
+				maxNumberOfDays[employee] = Math.max(problemInstance.getDaysToWorkInTotalForEmployee(employee),
+						Long.bitCount(solution.getWorkingDaysOfEmployee(employee)));
+				minNumberOfFreeDays[employee] = Math.min(freeDays, (int) Math.ceil(mirroredFreeDays));
+				maxNumberOfFreeDays[employee] = Math.max(freeDays, (int) Math.floor(mirroredFreeDays));
+			}
+		}
+
+		private boolean allow(Solution solution) {
+			for (int day = 0; day < employeeOnDay.length; day++) {
+				int employee = solution.getEmployeeForDay(day);
+				if (!problemInstance.isEmployeeAvailableOnDay(employee, day) || (fixedEmployeeOnDay[day]
+						!= Config.MISSING_EMPLOYEE && fixedEmployeeOnDay[day] != employee)) {
+					return false;
+				}
+				employeeOnDay[day] = employee;
+			}
+			return isAllowed(employeeOnDay);
+		}
+
+		private boolean isAllowed(int[] employeeOnDay) {
+			int[] freeDays = countFreeDays(problemInstance, employeeOnDay);
+			int daysWithoutEmployee = 0;
+			int[] numberOfDays = new int[Config.NUMBER_OF_EMPLOYEES];
+			for (int employee : employeeOnDay) {
+				if (employee == Config.MISSING_EMPLOYEE) {
+					daysWithoutEmployee++;
+				} else {
+					numberOfDays[employee]++;
+				}
+			}
+
+			for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+				if (numberOfDays[employee] > maxNumberOfDays[employee]
+						|| freeDays[employee] < minNumberOfFreeDays[employee]
+						|| freeDays[employee] > maxNumberOfFreeDays[employee]) {
+					return false;
+				}
+			}
+			return daysWithoutEmployee <= maxNumberOfDaysWithoutEmployee;
+		}
+
+		private double findBestCosts() {
+			bestCosts = Double.MAX_VALUE;
+			enumerate(0);
+			return bestCosts;
+		}
+
+		private void enumerate(int day) {
+			if (day == employeeOnDay.length) {
+				if (isAllowed(employeeOnDay)) {
+					bestCosts = Math.min(bestCosts, calculateCostsFromScratch(problemInstance, employeeOnDay));
+				}
+				return;
+			}
+			if (fixedEmployeeOnDay[day] != Config.MISSING_EMPLOYEE) {
+				employeeOnDay[day] = fixedEmployeeOnDay[day];
+				enumerate(day + 1);
+				return;
+			}
+
+			employeeOnDay[day] = Config.MISSING_EMPLOYEE;
+			enumerate(day + 1);
+			for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+				if (problemInstance.isEmployeeAvailableOnDay(employee, day)) {
+					employeeOnDay[day] = employee;
+					enumerate(day + 1);
+				}
+			}
+		}
+	}
+
+	private static double calculateCostsFromScratch(ProblemInstance problemInstance, Solution solution) {
+		return calculateCostsFromScratch(problemInstance, getEmployeeOnDay(problemInstance, solution));
+	}
+
+	private static double calculateCostsFromScratch(ProblemInstance problemInstance, int[] employeeOnDay) {
+		return new Solution(employeeOnDay.clone(), countFreeDays(problemInstance, employeeOnDay), problemInstance,
+				new SolutionCostMapper(problemInstance)).getCosts();
+	}
+
+	private static int[] getEmployeeOnDay(ProblemInstance problemInstance, Solution solution) {
+		int[] employeeOnDay = new int[problemInstance.getLengthOfMonth()];
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			employeeOnDay[day] = solution.getEmployeeForDay(day);
+		}
+		return employeeOnDay;
+	}
+
+	private static int[] countFreeDays(ProblemInstance problemInstance, int[] employeeOnDay) {
+		int[] numberOfFreeDaysForEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			if (problemInstance.isFreeDay(day) && employeeOnDay[day] != Config.MISSING_EMPLOYEE) {
+				numberOfFreeDaysForEmployee[employeeOnDay[day]]++;
+			}
+		}
+		return numberOfFreeDaysForEmployee;
+	}
+
+	/**
+	 * Creates a schedule which keeps most fixed days and gives the other days to a random available employee or to
+	 * nobody. A fixed day which is given to another employee is not fixed under the rules of the search.
+	 */
+	private static Solution createSolution(ProblemInstance problemInstance, SplittableRandom random) {
+		int[] employeeOnDay = new int[problemInstance.getLengthOfMonth()];
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			employeeOnDay[day] = problemInstance.getEmployeeOnFixedDay(day);
+			if (employeeOnDay[day] != Config.MISSING_EMPLOYEE && random.nextInt(4) != 0) {
+				continue;
+			}
+			employeeOnDay[day] = Config.MISSING_EMPLOYEE;
+			int numberOfCandidates = 1;
+			for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+				if (problemInstance.isEmployeeAvailableOnDay(employee, day)
+						&& random.nextInt(++numberOfCandidates) == 0) {
+					employeeOnDay[day] = employee;
+				}
+			}
+		}
+		return new Solution(employeeOnDay, countFreeDays(problemInstance, employeeOnDay), problemInstance,
+				new SolutionCostMapper(problemInstance));
+	}
+
+	/**
+	 * Creates a controller which is not started, so it only provides the constraints.
+	 */
+	private static ThreadsController createThreadsController(ProblemInstance problemInstance) {
+		return new ThreadsController(new File(""), null) {
+			@Override
+			public ProblemInstance getProblemInstance() {
+				return problemInstance;
+			}
+
+			@Override
+			public void println(String message) {
+			}
+		};
+	}
+
+	/**
+	 * Creates a random roster with free days, days on which single shifts are forbidden, fixed days and block shifts
+	 * of up to three days.
+	 */
+	private static ProblemInstance createProblemInstance(SplittableRandom random, int lengthOfMonth,
+			int numberOfWorkingEmployees) {
+		long daysOfMonth = (1L << lengthOfMonth) - 1;
+		long freeDays = random.nextLong() & random.nextLong() & daysOfMonth;
+		long singleShiftForbiddenDays = random.nextLong() & random.nextLong() & daysOfMonth;
+		int[] fixedEmployeeOnDay = new int[lengthOfMonth];
+		long[] availableDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+		double[] maxLengthOfShift = new double[Config.NUMBER_OF_EMPLOYEES];
+		double[] wishedLengthOfShift = new double[Config.NUMBER_OF_EMPLOYEES];
+		double[] additionalFreeDays = new double[Config.NUMBER_OF_EMPLOYEES];
+		int[] daysToWorkInTotal = new int[Config.NUMBER_OF_EMPLOYEES];
+		double[] daysToWorkAtFreeDay = new double[Config.NUMBER_OF_EMPLOYEES];
+		double[] expectedDaysBetweenShifts = new double[Config.NUMBER_OF_EMPLOYEES];
+		Arrays.fill(fixedEmployeeOnDay, Config.MISSING_EMPLOYEE);
+
+		for (int day = 0; day < lengthOfMonth; day++) {
+			daysToWorkInTotal[random.nextInt(numberOfWorkingEmployees)]++;
+		}
+		for (int employee = 0; employee < numberOfWorkingEmployees; employee++) {
+			availableDaysOfEmployee[employee] = daysOfMonth & (random.nextLong() | random.nextLong());
+			maxLengthOfShift[employee] = 1 + random.nextInt(3);
+			wishedLengthOfShift[employee] = 1 + random.nextInt(2);
+			additionalFreeDays[employee] = random.nextInt(2);
+			daysToWorkAtFreeDay[employee] = random.nextInt(2 * Long.bitCount(freeDays) + 1) / 2.0;
+			expectedDaysBetweenShifts[employee] = daysToWorkInTotal[employee] == 0 ? 0
+					: (double) lengthOfMonth * wishedLengthOfShift[employee] / daysToWorkInTotal[employee];
+		}
+		for (int day = 0; day < lengthOfMonth; day++) {
+			int employee = random.nextInt(numberOfWorkingEmployees);
+			if (random.nextInt(4) == 0 && (availableDaysOfEmployee[employee] & (1L << day)) != 0) {
+				fixedEmployeeOnDay[day] = employee;
+			}
+		}
+		return new ProblemInstance(lengthOfMonth, freeDays, singleShiftForbiddenDays, fixedEmployeeOnDay,
+				availableDaysOfEmployee, maxLengthOfShift, wishedLengthOfShift, additionalFreeDays, daysToWorkInTotal,
+				daysToWorkAtFreeDay, expectedDaysBetweenShifts);
+	}
+}
@@ -0,0 +1,184 @@
+package scheduling.matching;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
+
+/**
+ * Compares the array based shift assignment with the graph based matching on generated rosters. Every roster is
+ * derived from a planned schedule which works every day that anybody can work, keeps the free days of every employee
+ * and all fixed days. Such a schedule has the maximum weight, and every other schedule with this weight has the same
+ * number of shifts and of free days per employee, so both matchings have to agree on them.
+ */
+class ShiftAssignmentTest {
+	private static final int NUMBER_OF_ROSTERS = 200;
+	private static final long SEED = 42;
+
+	@Test
+	void findsTheSameMatchingForSolvableRosters() {
+		Random random = new Random(SEED);
+		for (int roster = 0; roster < NUMBER_OF_ROSTERS; roster++) {
+			assertSameMatching(createProblemInstance(random, 0), "solvable roster " + roster);
+		}
+	}
+
+	@Test
+	void findsTheSameMatchingForUnsolvableRosters() {
+		Random random = new Random(SEED + 1);
+		for (int roster = 0; roster < NUMBER_OF_ROSTERS; roster++) {
+			assertSameMatching(createProblemInstance(random, 1 + random.nextInt(3)), "unsolvable roster " + roster);
+		}
+	}
+
+	@Test
+	void runsWithoutThreadsController() {
+		ProblemInstance problemInstance = createProblemInstance(new Random(SEED + 2), 0);
+		ShiftMatching shiftMatching = new ShiftMatching(problemInstance);
+		int[] employeeOnDay = getEmployeeOnDay(shiftMatching.run(), problemInstance);
+
+		assertTrue(shiftMatching.isPerfect(), "perfect matching");
+		assertFixedDaysAssigned(problemInstance, employeeOnDay, "roster without threads controller");
+	}
+
+	private static void assertSameMatching(ProblemInstance problemInstance, String roster) {
+		ShiftMatching shiftMatching = new ShiftMatching(problemInstance);
+		int[] employeeOnDayOfGraph = getEmployeeOnDay(shiftMatching.runGraphMatching(), problemInstance);
+
+		ShiftAssignment shiftAssignment = new ShiftAssignment(problemInstance, null);
+		int[] employeeOnDay = shiftAssignment.run();
+		ShiftAssignment randomShiftAssignment = new ShiftAssignment(problemInstance, new SplittableRandom(SEED));
+		int[] employeeOnDayWithTieBreaking = randomShiftAssignment.run();
+
+		for (int[] employeeOnDayOfArrays : new int[][] { employeeOnDay, employeeOnDayWithTieBreaking }) {
+			assertEquals(calculateWeight(problemInstance, employeeOnDayOfGraph),
+					calculateWeight(problemInstance, employeeOnDayOfArrays), "weight of " + roster);
+			assertArrayEquals(countShifts(problemInstance, employeeOnDayOfGraph, problemInstance.getDaysOfMonth()),
+					countShifts(problemInstance, employeeOnDayOfArrays, problemInstance.getDaysOfMonth()),
+					"shifts of " + roster);
+			assertArrayEquals(countShifts(problemInstance, employeeOnDayOfGraph, problemInstance.getFreeDays()),
+					countShifts(problemInstance, employeeOnDayOfArrays, problemInstance.getFreeDays()),
+					"free days of " + roster);
+			assertFixedDaysAssigned(problemInstance, employeeOnDayOfArrays, roster);
+		}
+		assertFixedDaysAssigned(problemInstance, employeeOnDayOfGraph, roster);
+		assertEquals(shiftMatching.isPerfect(), shiftAssignment.isPerfect(), "perfect matching of " + roster);
+		assertEquals(shiftMatching.isPerfect(), randomShiftAssignment.isPerfect(), "perfect matching of " + roster);
+	}
+
+	private static void assertFixedDaysAssigned(ProblemInstance problemInstance, int[] employeeOnDay, String roster) {
+		for (int day = 0; day < problemInstance.getLengthOfMonth(); day++) {
+			int fixedEmployee = problemInstance.getEmployeeOnFixedDay(day);
+			if (fixedEmployee != Config.MISSING_EMPLOYEE) {
+				assertEquals(fixedEmployee, employeeOnDay[day], "fixed day " + day + " of " + roster);
+			}
+		}
+	}
+
+	/**
+	 * Creates the constraints of a random planned schedule, in which nobody can work on the given number of days. The
+	 * employees after the working ones have no shifts at all. The free days to work are made fractional, which the
+	 * matchings round up.
+	 */
+	private static ProblemInstance createProblemInstance(Random random, int numberOfDaysWithoutEmployee) {
+		int lengthOfMonth = 28 + random.nextInt(4);
+		int numberOfWorkingEmployees = 3 + random.nextInt(10);
+		long daysWithoutEmployee = 0;
+		while (Long.bitCount(daysWithoutEmployee) < numberOfDaysWithoutEmployee) {
+			daysWithoutEmployee |= 1L << random.nextInt(lengthOfMonth);
+		}
+
+		long freeDays = 0;
+		int[] fixedEmployeeOnDay = new int[lengthOfMonth];
+		long[] availableDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+		int[] daysToWorkInTotal = new int[Config.NUMBER_OF_EMPLOYEES];
+		int[] freeDaysToWork = new int[Config.NUMBER_OF_EMPLOYEES];
+		Arrays.fill(fixedEmployeeOnDay, Config.MISSING_EMPLOYEE);
+
+		for (int day = 0; day < lengthOfMonth; day++) {
+			boolean isFreeDay = random.nextInt(3) == 0;
+			freeDays |= isFreeDay ? 1L << day : 0;
+			if ((daysWithoutEmployee & (1L << day)) != 0) {
+				continue;
+			}
+			int employee = random.nextInt(numberOfWorkingEmployees);
+			availableDaysOfEmployee[employee] |= 1L << day;
+			daysToWorkInTotal[employee]++;
+			freeDaysToWork[employee] += isFreeDay ? 1 : 0;
+			if (random.nextInt(8) == 0) {
+				fixedEmployeeOnDay[day] = employee;
+			}
+		}
+
+		double[] daysToWorkAtFreeDay = new double[Config.NUMBER_OF_EMPLOYEES];
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			long otherDays = ((1L << lengthOfMonth) - 1) & ~daysWithoutEmployee & random.nextLong();
+			availableDaysOfEmployee[employee] |= otherDays;
+			if (employee >= numberOfWorkingEmployees) {
+				daysToWorkInTotal[employee] = -random.nextInt(2);
+				daysToWorkAtFreeDay[employee] = random.nextInt(3);
+			} else if (freeDaysToWork[employee] > 0) {
+				daysToWorkAtFreeDay[employee] = freeDaysToWork[employee] - random.nextInt(4) * 0.25;
+			} else {
+				daysToWorkAtFreeDay[employee] = -random.nextInt(2);
+			}
+		}
+
+		double[] limits = new double[Config.NUMBER_OF_EMPLOYEES];
+		Arrays.fill(limits, 1);
+		return new ProblemInstance(lengthOfMonth, freeDays, 0, fixedEmployeeOnDay, availableDaysOfEmployee, limits,
+				limits, limits, daysToWorkInTotal, daysToWorkAtFreeDay, limits);
+	}
+
+	private static int[] getEmployeeOnDay(Solution solution, ProblemInstance problemInstance) {
+		int[] employeeOnDay = new int[problemInstance.getLengthOfMonth()];
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			employeeOnDay[day] = solution.getEmployeeForDay(day);
+		}
+		return employeeOnDay;
+	}
+
+	private static int[] countShifts(ProblemInstance problemInstance, int[] employeeOnDay, long days) {
+		int[] shiftsOfEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			if (employeeOnDay[day] != Config.MISSING_EMPLOYEE && (days & (1L << day)) != 0) {
+				shiftsOfEmployee[employeeOnDay[day]]++;
+			}
+		}
+		return shiftsOfEmployee;
+	}
+
+	/**
+	 * Returns the weight of the best matching of shifts to the days of the schedule: every shift counts, a free day
+	 * only as long as the employee has shifts for free days left and a fixed day with its extra weight.
+	 */
+	private static long calculateWeight(ProblemInstance problemInstance, int[] employeeOnDay) {
+		int[] freeDaysOfEmployee = countShifts(problemInstance, employeeOnDay, problemInstance.getFreeDays());
+		long weight = 0;
+
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			int employee = employeeOnDay[day];
+			if (employee != Config.MISSING_EMPLOYEE) {
+				weight += Config.WEIGHT_FOR_NORMAL_DAY;
+				weight += problemInstance.getEmployeeOnFixedDay(day) == employee ? Config.WEIGHT_FOR_FIXED_DAY : 0;
+			}
+		}
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			int shiftsForFreeDays = (int) Math.min(
+					Math.max(0, problemInstance.getDaysToWorkInTotalForEmployee(employee)),
+					Math.max(0, Math.ceil(problemInstance.getDaysToWorkAtFreeDayForEmployee(employee))));
+			weight += (long) Math.min(freeDaysOfEmployee[employee], shiftsForFreeDays)
+					* (Config.WEIGHT_FOR_FREE_DAY - Config.WEIGHT_FOR_NORMAL_DAY);
+		}
+		return weight;
+	}
+}
@@ -0,0 +1,158 @@
+package scheduling.spreadsheet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds small ODS files from hand-written XML, laid out like the files LibreOffice writes: a stored mimetype as the
+ * first entry, followed by the deflated manifest, styles and content. The styles.xml always defines the common style
+ * Shift with a background color and the style Plain without one, so that automatic styles can inherit from both.
+ */
+final class OdsFixture {
+	static final String SPREADSHEET_MEDIA_TYPE = "application/vnd.oasis.opendocument.spreadsheet";
+	static final String TEMPLATE_MEDIA_TYPE = SPREADSHEET_MEDIA_TYPE + "-template";
+	static final int NUMBER_OF_COLUMNS = SpreadsheetSnapshot.getColumnIndex(SpreadsheetSnapshot.LAST_COLUMN) + 1;
+
+	private static final String NAMESPACES = "xmlns:office=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\" "
+			+ "xmlns:style=\"urn:oasis:names:tc:opendocument:xmlns:style:1.0\" "
+			+ "xmlns:text=\"urn:oasis:names:tc:opendocument:xmlns:text:1.0\" "
+			+ "xmlns:table=\"urn:oasis:names:tc:opendocument:xmlns:table:1.0\" "
+			+ "xmlns:fo=\"urn:oasis:names:tc:opendocument:xmlns:xsl-fo-compatible:1.0\" "
+			+ "xmlns:dc=\"http://purl.org/dc/elements/1.1/\" office:version=\"1.2\"";
+	private static final String STYLES = """
+			<?xml version="1.0" encoding="UTF-8"?>
+			<office:document-styles %s>
+			<office:styles>
+			<style:style style:name="Default" style:family="table-cell"/>
+			<style:style style:name="Shift" style:family="table-cell" style:parent-style-name="Default">
+			<style:table-cell-properties fo:background-color="#ffcc99"/>
+			</style:style>
+			<style:style style:name="Plain" style:family="table-cell" style:parent-style-name="Default"/>
+			</office:styles>
+			</office:document-styles>
+			""";
+	private static final String CONTENT = """
+			<?xml version="1.0" encoding="UTF-8"?>
+			<office:document-content %s>
+			<office:automatic-styles>%s</office:automatic-styles>
+			<office:body><office:spreadsheet>
+			<table:table table:name="Schedule">%s</table:table>
+			<table:table table:name="Other"><table:table-row><table:table-cell office:value-type="string">\
+			<text:p>Other sheet</text:p></table:table-cell></table:table-row></table:table>
+			</office:spreadsheet></office:body>
+			</office:document-content>
+			""";
+	private static final String MANIFEST = """
+			<?xml version="1.0" encoding="UTF-8"?>
+			<manifest:manifest xmlns:manifest="urn:oasis:names:tc:opendocument:xmlns:manifest:1.0" \
+			manifest:version="1.2">
+			<manifest:file-entry manifest:full-path="/" manifest:version="1.2" manifest:media-type="%s"/>
+			<manifest:file-entry manifest:full-path="content.xml" manifest:media-type="text/xml"/>
+			<manifest:file-entry manifest:full-path="styles.xml" manifest:media-type="text/xml"/>
+			</manifest:manifest>
+			""";
+
+	private OdsFixture() {
+	}
+
+	/**
+	 * Writes a spreadsheet whose first sheet consists of the given columns and rows, followed by enough empty rows that
+	 * the whole area of the snapshot exists in the sheet. The rows should be filled up to the full width with
+	 * {@link #row(String...)}.
+	 */
+	static Path createSpreadsheet(Path directory, String name, String automaticStyles, String columns, String... rows)
+			throws IOException {
+		return create(directory, name, SPREADSHEET_MEDIA_TYPE, automaticStyles, columns, rows);
+	}
+
+	static Path create(Path directory, String name, String mediaType, String automaticStyles, String columns,
+			String... rows) throws IOException {
+		StringBuilder table = new StringBuilder(columns);
+		for (String row : rows) {
+			table.append(row);
+		}
+		table.append(emptyRows(SpreadsheetSnapshot.LAST_ROW));
+
+		Path file = directory.resolve(name);
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+			addStoredEntry(zip, "mimetype", mediaType);
+			addEntry(zip, "META-INF/manifest.xml", MANIFEST.formatted(mediaType));
+			addEntry(zip, "styles.xml", STYLES.formatted(NAMESPACES));
+			addEntry(zip, "content.xml", CONTENT.formatted(NAMESPACES, automaticStyles, table));
+		}
+		return file;
+	}
+
+	static String plainColumns() {
+		return "<table:table-column table:number-columns-repeated=\"" + (NUMBER_OF_COLUMNS + 2) + "\"/>";
+	}
+
+	/**
+	 * Returns a row with the given cells, filled up with empty cells to the full width.
+	 */
+	static String row(String... cells) {
+		return repeatedRow(1, cells);
+	}
+
+	static String repeatedRow(int repeated, String... cells) {
+		StringBuilder row = new StringBuilder(repeated == 1 ? "<table:table-row>"
+				: "<table:table-row table:number-rows-repeated=\"" + repeated + "\">");
+		for (String cell : cells) {
+			row.append(cell);
+		}
+		return row.append("<table:table-cell table:number-columns-repeated=\"").append(NUMBER_OF_COLUMNS + 2)
+				.append("\"/></table:table-row>").toString();
+	}
+
+	static String emptyRows(int repeated) {
+		return "<table:table-row table:number-rows-repeated=\"" + repeated + "\"><table:table-cell "
+				+ "table:number-columns-repeated=\"" + (NUMBER_OF_COLUMNS + 2) + "\"/></table:table-row>";
+	}
+
+	static String stringCell(String value) {
+		return "<table:table-cell office:value-type=\"string\"><text:p>" + value + "</text:p></table:table-cell>";
+	}
+
+	static String floatCell(double value) {
+		return "<table:table-cell office:value-type=\"float\" office:value=\"" + value + "\"><text:p>" + value
+				+ "</text:p></table:table-cell>";
+	}
+
+	static String emptyCells(int repeated) {
+		return "<table:table-cell table:number-columns-repeated=\"" + repeated + "\"/>";
+	}
+
+	static String cellStyle(String name, String parent, String backgroundColor) {
+		return "<style:style style:name=\"" + name + "\" style:family=\"table-cell\""
+				+ (parent == null ? "" : " style:parent-style-name=\"" + parent + "\"") + ">"
+				+ (backgroundColor == null ? ""
+						: "<style:table-cell-properties fo:background-color=\"" + backgroundColor + "\"/>")
+				+ "</style:style>";
+	}
+
+	private static void addStoredEntry(ZipOutputStream zip, String name, String text) throws IOException {
+		byte[] data = text.getBytes(StandardCharsets.UTF_8);
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(data.length);
+		entry.setCompressedSize(data.length);
+		entry.setCrc(crc.getValue());
+		zip.putNextEntry(entry);
+		zip.write(data);
+		zip.closeEntry();
+	}
+
+	private static void addEntry(ZipOutputStream zip, String name, String text) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(text.getBytes(StandardCharsets.UTF_8));
+		zip.closeEntry();
+	}
+}
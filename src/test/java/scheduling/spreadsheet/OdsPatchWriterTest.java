@@ -0,0 +1,164 @@
+package scheduling.spreadsheet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static scheduling.spreadsheet.OdsFixture.emptyCells;
+import static scheduling.spreadsheet.OdsFixture.emptyRows;
+import static scheduling.spreadsheet.OdsFixture.floatCell;
+import static scheduling.spreadsheet.OdsFixture.plainColumns;
+import static scheduling.spreadsheet.OdsFixture.repeatedRow;
+import static scheduling.spreadsheet.OdsFixture.row;
+import static scheduling.spreadsheet.OdsFixture.stringCell;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.miachm.sods.SpreadSheet;
+
+import scheduling.common.Config;
+
+/**
+ * Patches random schedules into a small spreadsheet and into the template of the project and reopens the results as
+ * plain archives, with SODS and with the streaming reader. Every entry has to pass its CRC check, the mimetype has to
+ * stay the first and uncompressed entry and the schedule cells have to hold the written values, while all other cells
+ * keep theirs.
+ */
+class OdsPatchWriterTest {
+	private static final long SEED = 42;
+	private static final Path TEMPLATE = Path.of("schedule.ots");
+	private static final String WISH = "Wish";
+	private static final int COLUMN_BEHIND_SCHEDULE = SpreadsheetSnapshot.FIRST_COLUMN_OF_SCHEDULE
+			+ SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH;
+	private static final int LOCAL_HEADER_LENGTH = 30;
+	private static final String MIMETYPE = "mimetype" + OdsFixture.SPREADSHEET_MEDIA_TYPE;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void patchesScheduleIntoSpreadsheet() throws IOException {
+		Path input = OdsFixture.createSpreadsheet(directory, "input.ods", "", plainColumns(),
+				row(stringCell("Name"), emptyCells(SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH), stringCell(WISH)),
+				emptyRows(Config.ROWS_OF_HEADER - 1),
+				repeatedRow(3, stringCell("Anna"), "<table:table-cell table:number-columns-repeated=\"40\" "
+						+ "office:value-type=\"string\"><text:p>old</text:p></table:table-cell>"),
+				repeatedRow(Config.NUMBER_OF_EMPLOYEES - 3, stringCell("Ben"), emptyCells(10), floatCell(1.5)));
+		Path output = directory.resolve("output.ods");
+		String[][] schedule = createSchedule(new Random(SEED));
+
+		new OdsPatchWriter(input.toFile()).write(output.toFile(), schedule);
+
+		assertValidArchive(output);
+		for (SpreadsheetSnapshot snapshot : read(output)) {
+			assertScheduleWritten(schedule, snapshot);
+			assertEquals(WISH, snapshot.getValue(1, COLUMN_BEHIND_SCHEDULE), "kept header");
+			for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+				int row = SpreadsheetSnapshot.FIRST_ROW_OF_SCHEDULE + employee;
+				assertEquals(employee < 3 ? "Anna" : "Ben", snapshot.getValue(row, 0), "kept name in row " + row);
+				assertEquals(employee < 3 ? "old" : null, snapshot.getValue(row, COLUMN_BEHIND_SCHEDULE),
+						"kept value behind the schedule in row " + row);
+			}
+		}
+	}
+
+	@Test
+	void turnsTemplateIntoSpreadsheet() throws IOException {
+		Path output = directory.resolve("output.ods");
+		String[][] schedule = createSchedule(new Random(SEED + 1));
+
+		new OdsPatchWriter(TEMPLATE.toFile()).write(output.toFile(), schedule);
+
+		assertValidArchive(output);
+		try (ZipFile zipFile = new ZipFile(output.toFile());
+				ZipFile template = new ZipFile(TEMPLATE.toFile())) {
+			String manifest = readText(zipFile, zipFile.getEntry("META-INF/manifest.xml"));
+			assertTrue(manifest.contains(OdsFixture.SPREADSHEET_MEDIA_TYPE), "media type of the spreadsheet");
+			assertFalse(manifest.contains(OdsFixture.TEMPLATE_MEDIA_TYPE), "media type of the template");
+			assertEquals(template.size(), zipFile.size(), "number of entries");
+			for (String name : new String[] { "styles.xml", "settings.xml", "Thumbnails/thumbnail.png" }) {
+				assertEquals(template.getEntry(name).getCrc(), zipFile.getEntry(name).getCrc(), "copied " + name);
+			}
+		}
+		for (SpreadsheetSnapshot snapshot : read(output)) {
+			assertScheduleWritten(schedule, snapshot);
+		}
+	}
+
+	/**
+	 * Checks the CRC and the size of every entry and that the file starts with the uncompressed mimetype entry of a
+	 * spreadsheet, as the ODF specification requires.
+	 */
+	private static void assertValidArchive(Path file) throws IOException {
+		try (ZipFile zipFile = new ZipFile(file.toFile())) {
+			for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements();) {
+				ZipEntry entry = entries.nextElement();
+				CRC32 crc = new CRC32();
+				byte[] data;
+				try (InputStream stream = zipFile.getInputStream(entry)) {
+					data = stream.readAllBytes();
+				}
+				crc.update(data);
+				assertEquals(entry.getCrc(), crc.getValue(), "CRC of " + entry.getName());
+				assertEquals(entry.getSize(), data.length, "size of " + entry.getName());
+			}
+
+			ZipEntry mimetype = zipFile.getEntry("mimetype");
+			assertEquals(ZipEntry.STORED, mimetype.getMethod(), "compression of the mimetype");
+			assertEquals(OdsFixture.SPREADSHEET_MEDIA_TYPE, readText(zipFile, mimetype), "mimetype");
+		}
+
+		byte[] start = new byte[LOCAL_HEADER_LENGTH + MIMETYPE.length()];
+		try (InputStream stream = Files.newInputStream(file)) {
+			assertEquals(start.length, stream.readNBytes(start, 0, start.length), "length of the file");
+		}
+		assertEquals(MIMETYPE, new String(start, LOCAL_HEADER_LENGTH, MIMETYPE.length(), StandardCharsets.UTF_8),
+				"first entry");
+	}
+
+	private static void assertScheduleWritten(String[][] schedule, SpreadsheetSnapshot snapshot) {
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			for (int day = 0; day < SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH; day++) {
+				assertEquals(schedule[employee][day], snapshot.getValueInSchedule(employee, day), "cell of employee "
+						+ employee + " on day " + day);
+			}
+		}
+	}
+
+	private static SpreadsheetSnapshot[] read(Path file) throws IOException {
+		return new SpreadsheetSnapshot[] { SpreadsheetSnapshot.of(new SpreadSheet(file.toFile()).getSheet(0)),
+				new OdsStreamingReader(file.toFile()).read() };
+	}
+
+	private static String readText(ZipFile zipFile, ZipEntry entry) throws IOException {
+		try (InputStream stream = zipFile.getInputStream(entry)) {
+			return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Creates a schedule with runs of equal cells, so that the writer has to split and merge repeated cells.
+	 */
+	private static String[][] createSchedule(Random random) {
+		String[][] schedule = new String[Config.NUMBER_OF_EMPLOYEES][SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH];
+		for (String[] shiftsOfEmployee : schedule) {
+			for (int day = 0; day < shiftsOfEmployee.length; day++) {
+				boolean isRepeated = day > 0 && random.nextBoolean();
+				shiftsOfEmployee[day] = isRepeated ? shiftsOfEmployee[day - 1]
+						: random.nextInt(3) == 0 ? Config.WORKING : null;
+			}
+		}
+		return schedule;
+	}
+}
@@ -0,0 +1,162 @@
+package scheduling.spreadsheet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static scheduling.spreadsheet.OdsFixture.cellStyle;
+import static scheduling.spreadsheet.OdsFixture.emptyCells;
+import static scheduling.spreadsheet.OdsFixture.emptyRows;
+import static scheduling.spreadsheet.OdsFixture.floatCell;
+import static scheduling.spreadsheet.OdsFixture.plainColumns;
+import static scheduling.spreadsheet.OdsFixture.repeatedRow;
+import static scheduling.spreadsheet.OdsFixture.row;
+import static scheduling.spreadsheet.OdsFixture.stringCell;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.miachm.sods.SpreadSheet;
+
+import scheduling.common.Config;
+
+/**
+ * Reads small ODS files with the streaming reader as well as with SODS and checks that both snapshots agree in every
+ * value and every background color. Each file covers one of the structures the streaming reader has to resolve on its
+ * own: merged cells, repeated rows and cells, annotations and styles which inherit their background color.
+ */
+class OdsStreamingReaderTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsMergedCells() throws IOException {
+		Path file = OdsFixture.createSpreadsheet(directory, "merged.ods", "", plainColumns(),
+				row("<table:table-cell table:number-columns-spanned=\"3\" table:number-rows-spanned=\"2\" "
+						+ "office:value-type=\"string\"><text:p>Schedule</text:p></table:table-cell>",
+						"<table:covered-table-cell table:number-columns-repeated=\"2\"/>", stringCell("May")),
+				row("<table:covered-table-cell table:number-columns-repeated=\"3\"/>", floatCell(2024)),
+				emptyRows(3),
+				row(stringCell("Anna"), "<table:table-cell table:number-columns-spanned=\"2\" "
+						+ "office:value-type=\"string\"><text:p>X</text:p></table:table-cell>",
+						"<table:covered-table-cell/>", stringCell("Y")));
+		SpreadsheetSnapshot snapshot = readAndCompareWithSods(file);
+
+		for (String column : new String[] { "A", "B", "C" }) {
+			for (int row = 1; row <= 2; row++) {
+				assertEquals("Schedule", snapshot.getValue(column, row), "value of " + column + row);
+			}
+		}
+		assertEquals("May", snapshot.getValue("D", 1), "value of D1");
+		assertEquals(2024.0, snapshot.getValue("D", 2), "value of D2");
+		assertEquals("X", snapshot.getValueInSchedule(0, 0), "value of B6");
+		assertEquals("X", snapshot.getValueInSchedule(0, 1), "value of C6");
+		assertEquals("Y", snapshot.getValueInSchedule(0, 2), "value of D6");
+	}
+
+	@Test
+	void readsRepeatedRowsAndCells() throws IOException {
+		int lastColumn = OdsFixture.NUMBER_OF_COLUMNS - 1;
+		Path file = OdsFixture.createSpreadsheet(directory, "repeated.ods", "", plainColumns(),
+				row(stringCell("Name"), emptyCells(lastColumn - 1), stringCell("Wish")),
+				emptyRows(Config.ROWS_OF_HEADER - 1),
+				repeatedRow(4, stringCell("Anna"), "<table:table-cell table:number-columns-repeated=\"5\" "
+						+ "office:value-type=\"string\"><text:p>X</text:p></table:table-cell>",
+						emptyCells(SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH - 5), floatCell(2.5)),
+				row(stringCell("Ben"), "<table:table-cell table:number-columns-repeated=\"" + (lastColumn + 2)
+						+ "\" office:value-type=\"string\"><text:p>-</text:p></table:table-cell>"));
+		SpreadsheetSnapshot snapshot = readAndCompareWithSods(file);
+
+		assertEquals("Wish", snapshot.getValue(SpreadsheetSnapshot.LAST_COLUMN, 1), "value of the last column");
+		for (int employee = 0; employee < 4; employee++) {
+			int row = SpreadsheetSnapshot.FIRST_ROW_OF_SCHEDULE + employee;
+			assertEquals("Anna", snapshot.getValue(row, 0), "name in row " + row);
+			assertEquals("X", snapshot.getValueInSchedule(employee, 4), "fifth day in row " + row);
+			assertNull(snapshot.getValueInSchedule(employee, 5), "sixth day in row " + row);
+			assertEquals(2.5, snapshot.getValue(row, SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH + 1),
+					"wish in row " + row);
+		}
+		assertEquals("-", snapshot.getValueInSchedule(4, SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH - 1), "last day");
+		assertEquals("-", snapshot.getValue(SpreadsheetSnapshot.LAST_COLUMN, SpreadsheetSnapshot.FIRST_ROW_OF_SCHEDULE
+				+ 4), "value of the last column");
+	}
+
+	@Test
+	void skipsAnnotations() throws IOException {
+		Path file = OdsFixture.createSpreadsheet(directory, "annotated.ods", "", plainColumns(),
+				emptyRows(Config.ROWS_OF_HEADER),
+				row(stringCell("Anna"),
+						"<table:table-cell office:value-type=\"string\"><office:annotation><dc:creator>Planner"
+								+ "</dc:creator><text:p>Only on weekends</text:p></office:annotation><text:p>X</text:p>"
+								+ "</table:table-cell>",
+						"<table:table-cell><office:annotation><text:p>Free</text:p></office:annotation>"
+								+ "</table:table-cell>",
+						"<table:table-cell office:value-type=\"string\"><text:p>Y</text:p><office:annotation>"
+								+ "<text:p>First</text:p><text:p>Second</text:p></office:annotation>"
+								+ "</table:table-cell>"));
+		SpreadsheetSnapshot snapshot = readAndCompareWithSods(file);
+
+		assertEquals("X", snapshot.getValueInSchedule(0, 0), "annotated value");
+		assertNull(snapshot.getValueInSchedule(0, 1), "annotation without value");
+		assertEquals("Y", snapshot.getValueInSchedule(0, 2), "value before annotation");
+	}
+
+	@Test
+	void inheritsBackgroundColors() throws IOException {
+		String automaticStyles = cellStyle("ce1", "Default", "#ff0000") + cellStyle("ce2", "Shift", null)
+				+ cellStyle("ce3", "Shift", "transparent") + cellStyle("ce4", "Plain", null);
+		Path file = OdsFixture.createSpreadsheet(directory, "colored.ods", automaticStyles,
+				"<table:table-column table:number-columns-repeated=\"3\"/>"
+						+ "<table:table-column table:default-cell-style-name=\"ce2\"/>"
+						+ "<table:table-column table:number-columns-repeated=\"" + (OdsFixture.NUMBER_OF_COLUMNS - 2)
+						+ "\"/>",
+				emptyRows(Config.ROWS_OF_HEADER),
+				row(stringCell("Anna"), "<table:table-cell table:style-name=\"ce1\"/>",
+						"<table:table-cell table:style-name=\"ce4\"/>", emptyCells(1),
+						"<table:table-cell table:style-name=\"ce3\"/>",
+						"<table:table-cell table:style-name=\"Shift\" office:value-type=\"string\"><text:p>X</text:p>"
+								+ "</table:table-cell>"),
+				repeatedRow(2, stringCell("Ben"), "<table:table-cell table:style-name=\"ce2\" "
+						+ "table:number-columns-repeated=\"" + SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH + "\"/>"));
+		SpreadsheetSnapshot snapshot = readAndCompareWithSods(file);
+
+		assertTrue(snapshot.hasBackgroundColorInSchedule(0, 0), "color of the automatic style");
+		assertFalse(snapshot.hasBackgroundColorInSchedule(0, 1), "parent style without color");
+		assertTrue(snapshot.hasBackgroundColorInSchedule(0, 2), "color of the column");
+		assertFalse(snapshot.hasBackgroundColorInSchedule(0, 3), "transparent color");
+		assertTrue(snapshot.hasBackgroundColorInSchedule(0, 4), "color of the common style");
+		assertFalse(snapshot.hasBackgroundColorInSchedule(0, 5), "cell without style");
+		for (int day = 0; day < SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH; day++) {
+			assertTrue(snapshot.hasBackgroundColorInSchedule(1, day), "color of the parent style on day " + day);
+			assertTrue(snapshot.hasBackgroundColorInSchedule(2, day), "color of the repeated row on day " + day);
+			assertEquals(day == 2, snapshot.hasBackgroundColorInSchedule(3, day), "color of the column on day " + day);
+		}
+	}
+
+	/**
+	 * Reads the file with both readers, asserts that the snapshots agree cell by cell and returns the snapshot of the
+	 * streaming reader.
+	 */
+	private static SpreadsheetSnapshot readAndCompareWithSods(Path file) throws IOException {
+		SpreadsheetSnapshot expected = SpreadsheetSnapshot.of(new SpreadSheet(file.toFile()).getSheet(0));
+		SpreadsheetSnapshot actual = new OdsStreamingReader(file.toFile()).read();
+
+		for (int row = 1; row <= SpreadsheetSnapshot.LAST_ROW; row++) {
+			for (int column = 0; column < OdsFixture.NUMBER_OF_COLUMNS; column++) {
+				assertEquals(expected.getValue(row, column), actual.getValue(row, column), "value of "
+						+ SpreadsheetSnapshot.getColumnName(column) + row);
+			}
+		}
+		for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+			for (int day = 0; day < SpreadsheetSnapshot.MAX_LENGTH_OF_MONTH; day++) {
+				assertEquals(expected.hasBackgroundColorInSchedule(employee, day),
+						actual.hasBackgroundColorInSchedule(employee, day), "background color of employee "
+								+ employee + " on day " + day);
+			}
+		}
+		return actual;
+	}
+}
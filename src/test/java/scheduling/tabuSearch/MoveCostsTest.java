@@ -0,0 +1,189 @@
+package scheduling.tabuSearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
+import scheduling.common.SolutionCostMapper;
+import scheduling.matching.WindowRepair;
+
+/**
+ * Samples moves of every kind on random rosters and compares the costs which a move predicts without modifying the
+ * solution with the costs of the moved solution, once as maintained incrementally by the solution and once calculated
+ * from scratch for a new solution of the same schedule. The solutions wander through the search space by applying
+ * some of the sampled moves, so that the moves are checked on many different schedules.
+ */
+class MoveCostsTest {
+	private static final long SEED = 42;
+	private static final int NUMBER_OF_ROSTERS = 40;
+	private static final int NUMBER_OF_SAMPLES = 500;
+	private static final int SAMPLES_BETWEEN_REPAIRS = 10;
+	private static final int MIN_SAMPLES_PER_KIND = 100;
+	private static final double TOLERANCE = 1e-6;
+	private static final int MIN_LENGTH_OF_MONTH = 28;
+	private static final int MAX_LENGTH_OF_MONTH = 31;
+
+	@Test
+	void predictsCostsOfEveryMoveKind() {
+		SplittableRandom random = new SplittableRandom(SEED);
+		Map<MoveKind, Integer> samplesOfKind = new EnumMap<>(MoveKind.class);
+
+		for (int roster = 0; roster < NUMBER_OF_ROSTERS; roster++) {
+			ProblemInstance problemInstance = createProblemInstance(random);
+			MoveValidator moveValidator = new MoveValidator(problemInstance);
+			MoveSampler moveSampler = new MoveSampler(problemInstance, moveValidator, true);
+			WindowRepair windowRepair = new WindowRepair(problemInstance);
+			Solution solution = createSolution(problemInstance, random);
+			Move move = new Move(problemInstance.getLengthOfMonth());
+
+			for (int sample = 0; sample < NUMBER_OF_SAMPLES; sample++) {
+				boolean isSampled = sample % SAMPLES_BETWEEN_REPAIRS == 0
+						? sampleRepair(problemInstance, windowRepair, solution, random, move)
+						: moveSampler.sample(solution, moveValidator.getMovableDays(solution), random, move);
+				if (!isSampled) {
+					continue;
+				}
+
+				assertCostsAfterMove(problemInstance, solution, move, "roster " + roster + ", sample " + sample);
+				samplesOfKind.merge(move.getKind(), 1, Integer::sum);
+				if (random.nextInt(4) == 0) {
+					move.applyTo(solution, problemInstance);
+				}
+			}
+		}
+
+		for (MoveKind kind : MoveKind.values()) {
+			int samples = samplesOfKind.getOrDefault(kind, 0);
+			assertTrue(samples >= MIN_SAMPLES_PER_KIND, samples + " samples of " + kind);
+		}
+	}
+
+	private static void assertCostsAfterMove(ProblemInstance problemInstance, Solution solution, Move move,
+			String sample) {
+		double predictedCosts = move.getCostsAfterMove(solution);
+		Solution movedSolution = solution.createCopy();
+		move.applyTo(movedSolution, problemInstance);
+
+		assertEquals(calculateCostsFromScratch(problemInstance, movedSolution), movedSolution.getCosts(), TOLERANCE,
+				"incremental costs after " + move.getKind() + " in " + sample);
+		assertEquals(movedSolution.getCosts(), predictedCosts, TOLERANCE,
+				"predicted costs of " + move.getKind() + " in " + sample);
+	}
+
+	private static double calculateCostsFromScratch(ProblemInstance problemInstance, Solution solution) {
+		int[] employeeOnDay = new int[problemInstance.getLengthOfMonth()];
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			employeeOnDay[day] = solution.getEmployeeForDay(day);
+		}
+		return new Solution(employeeOnDay, countFreeDays(problemInstance, employeeOnDay), problemInstance,
+				new SolutionCostMapper(problemInstance)).getCosts();
+	}
+
+	/**
+	 * Repairs a random window of days like the tabu search does and fills the move with the changed days.
+	 */
+	private static boolean sampleRepair(ProblemInstance problemInstance, WindowRepair windowRepair, Solution solution,
+			SplittableRandom random, Move move) {
+		int lengthOfMonth = problemInstance.getLengthOfMonth();
+		int lengthOfWindow = Math.min(Math.max(2, Config.LENGTH_OF_REPAIR_WINDOW), lengthOfMonth);
+		long window = ((1L << lengthOfWindow) - 1) << random.nextInt(lengthOfMonth - lengthOfWindow + 1);
+		int[] repairedEmployeeOnDay = windowRepair.repair(solution, window, random);
+		if (repairedEmployeeOnDay == null) {
+			return false;
+		}
+
+		move.reset(MoveKind.WINDOW_REPAIR);
+		for (int day = 0; day < lengthOfMonth; day++) {
+			if (repairedEmployeeOnDay[day] != solution.getEmployeeForDay(day)) {
+				move.add(day, repairedEmployeeOnDay[day]);
+			}
+		}
+		return move.size() > 0;
+	}
+
+	/**
+	 * Creates a schedule which keeps the fixed days and gives most other days to a random available employee. Some
+	 * days are left without employee, since they change the costs of the employee working right before them. The
+	 * schedule does not respect the days to work in total, so that the moves are checked on expensive schedules as well.
+	 */
+	private static Solution createSolution(ProblemInstance problemInstance, SplittableRandom random) {
+		int[] employeeOnDay = new int[problemInstance.getLengthOfMonth()];
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			employeeOnDay[day] = problemInstance.getEmployeeOnFixedDay(day);
+			if (employeeOnDay[day] != Config.MISSING_EMPLOYEE || random.nextInt(3) == 0) {
+				continue;
+			}
+			int numberOfCandidates = 0;
+			for (int employee = 0; employee < Config.NUMBER_OF_EMPLOYEES; employee++) {
+				if (problemInstance.isEmployeeAvailableOnDay(employee, day)
+						&& random.nextInt(++numberOfCandidates) == 0) {
+					employeeOnDay[day] = employee;
+				}
+			}
+		}
+		return new Solution(employeeOnDay, countFreeDays(problemInstance, employeeOnDay), problemInstance,
+				new SolutionCostMapper(problemInstance));
+	}
+
+	private static int[] countFreeDays(ProblemInstance problemInstance, int[] employeeOnDay) {
+		int[] numberOfFreeDaysForEmployee = new int[Config.NUMBER_OF_EMPLOYEES];
+		for (int day = 0; day < employeeOnDay.length; day++) {
+			if (problemInstance.isFreeDay(day) && employeeOnDay[day] != Config.MISSING_EMPLOYEE) {
+				numberOfFreeDaysForEmployee[employeeOnDay[day]]++;
+			}
+		}
+		return numberOfFreeDaysForEmployee;
+	}
+
+	/**
+	 * Creates a random roster with free days, days on which single shifts are forbidden and fixed days. Up to all
+	 * employees work, so that every employee can be affected by a move.
+	 */
+	private static ProblemInstance createProblemInstance(SplittableRandom random) {
+		int lengthOfMonth = random.nextInt(MIN_LENGTH_OF_MONTH, MAX_LENGTH_OF_MONTH + 1);
+		int numberOfWorkingEmployees = random.nextInt(3, Config.NUMBER_OF_EMPLOYEES + 1);
+		long daysOfMonth = (1L << lengthOfMonth) - 1;
+		long freeDays = random.nextLong() & random.nextLong() & daysOfMonth;
+		long singleShiftForbiddenDays = random.nextLong() & random.nextLong() & daysOfMonth;
+		int[] fixedEmployeeOnDay = new int[lengthOfMonth];
+		long[] availableDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+		double[] maxLengthOfShift = new double[Config.NUMBER_OF_EMPLOYEES];
+		double[] wishedLengthOfShift = new double[Config.NUMBER_OF_EMPLOYEES];
+		double[] additionalFreeDays = new double[Config.NUMBER_OF_EMPLOYEES];
+		int[] daysToWorkInTotal = new int[Config.NUMBER_OF_EMPLOYEES];
+		double[] daysToWorkAtFreeDay = new double[Config.NUMBER_OF_EMPLOYEES];
+		double[] expectedDaysBetweenShifts = new double[Config.NUMBER_OF_EMPLOYEES];
+		Arrays.fill(fixedEmployeeOnDay, Config.MISSING_EMPLOYEE);
+
+		for (int day = 0; day < lengthOfMonth; day++) {
+			daysToWorkInTotal[random.nextInt(numberOfWorkingEmployees)]++;
+		}
+		for (int employee = 0; employee < numberOfWorkingEmployees; employee++) {
+			availableDaysOfEmployee[employee] = daysOfMonth & (random.nextLong() | random.nextLong());
+			maxLengthOfShift[employee] = 1 + random.nextInt(3);
+			wishedLengthOfShift[employee] = 1 + random.nextInt(2);
+			additionalFreeDays[employee] = random.nextInt(3);
+			daysToWorkAtFreeDay[employee] = daysToWorkInTotal[employee] / 3.0;
+			expectedDaysBetweenShifts[employee] = daysToWorkInTotal[employee] == 0 ? 0
+					: (double) lengthOfMonth * wishedLengthOfShift[employee] / daysToWorkInTotal[employee];
+		}
+		for (int day = 0; day < lengthOfMonth; day++) {
+			int employee = random.nextInt(numberOfWorkingEmployees);
+			if (random.nextInt(8) == 0 && (availableDaysOfEmployee[employee] & (1L << day)) != 0) {
+				fixedEmployeeOnDay[day] = employee;
+			}
+		}
+		return new ProblemInstance(lengthOfMonth, freeDays, singleShiftForbiddenDays, fixedEmployeeOnDay,
+				availableDaysOfEmployee, maxLengthOfShift, wishedLengthOfShift, additionalFreeDays, daysToWorkInTotal,
+				daysToWorkAtFreeDay, expectedDaysBetweenShifts);
+	}
+}
@@ -0,0 +1,113 @@
+package scheduling.tabuSearch;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import scheduling.common.Config;
+import scheduling.common.ProblemInstance;
+import scheduling.common.Solution;
+import scheduling.common.ThreadsController;
+import scheduling.matching.ShiftMatching;
+
+/**
+ * Measures the bytes a seeded tabu search allocates on its thread and checks that they stay below a limit per
+ * iteration. A first search warms up the code, so that the measured one runs compiled. The limit leaves room for the
+ * copies of the solutions which the search publishes whenever it improves, but not for allocations in every iteration.
+ * The build runs this test a second time in its own JVM with the window repair and the island model, so that their
+ * buffers are measured as well.
+ */
+class TabuSearchAllocationTest {
+	private static final long SEED = 42;
+	private static final int LENGTH_OF_MONTH = 30;
+	private static final int NUMBER_OF_WORKING_EMPLOYEES = 8;
+	private static final double SHARE_OF_BUDGET = 0.25;
+	private static final long MAX_BYTES_PER_ITERATION = 64;
+
+	@Test
+	void allocatesAlmostNothingPerIteration() {
+		ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assertTrue(threadMXBean.isThreadAllocatedMemorySupported(), "measuring allocated memory is supported");
+		ProblemInstance problemInstance = createProblemInstance(new Random(SEED));
+		runSearch(createThreadsController(problemInstance));
+
+		ThreadsController threadsController = createThreadsController(problemInstance);
+		Solution initialSolution = new ShiftMatching(threadsController, SEED).run();
+		TabuSearch tabuSearch = new TabuSearch(threadsController, 0, SHARE_OF_BUDGET, new SplittableRandom(SEED));
+		long allocatedBytesBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+		tabuSearch.run(initialSolution);
+		long allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytesBefore;
+
+		long iterations = tabuSearch.getNumberOfEvaluations() / Config.TABU_SEARCH_NEIGHBORHOOD_SAMPLE_SIZE;
+		assertTrue(iterations > 0, "the search iterates");
+		assertTrue(allocatedBytes / iterations <= MAX_BYTES_PER_ITERATION, allocatedBytes + " bytes allocated in "
+				+ iterations + " iterations");
+	}
+
+	private static void runSearch(ThreadsController threadsController) {
+		Solution initialSolution = new ShiftMatching(threadsController, SEED).run();
+		new TabuSearch(threadsController, 0, SHARE_OF_BUDGET, new SplittableRandom(SEED)).run(initialSolution);
+	}
+
+	/**
+	 * Creates a controller which is not started, so it only provides the constraints and takes the published solutions.
+	 */
+	private static ThreadsController createThreadsController(ProblemInstance problemInstance) {
+		return new ThreadsController(new File(""), null) {
+			@Override
+			public ProblemInstance getProblemInstance() {
+				return problemInstance;
+			}
+
+			@Override
+			public void println(String message) {
+			}
+		};
+	}
+
+	/**
+	 * Creates a random roster with block shifts. The mandatory block shift on the first day cannot be kept, so no
+	 * schedule reaches the target costs and the search runs until its budget is used up.
+	 */
+	private static ProblemInstance createProblemInstance(Random random) {
+		long freeDays = 0;
+		int[] fixedEmployeeOnDay = new int[LENGTH_OF_MONTH];
+		long[] availableDaysOfEmployee = new long[Config.NUMBER_OF_EMPLOYEES];
+		double[] maxLengthOfShift = new double[Config.NUMBER_OF_EMPLOYEES];
+		double[] wishedLengthOfShift = new double[Config.NUMBER_OF_EMPLOYEES];
+		double[] additionalFreeDays = new double[Config.NUMBER_OF_EMPLOYEES];
+		int[] daysToWorkInTotal = new int[Config.NUMBER_OF_EMPLOYEES];
+		double[] daysToWorkAtFreeDay = new double[Config.NUMBER_OF_EMPLOYEES];
+		double[] expectedDaysBetweenShifts = new double[Config.NUMBER_OF_EMPLOYEES];
+		Arrays.fill(fixedEmployeeOnDay, Config.MISSING_EMPLOYEE);
+
+		for (int day = 0; day < LENGTH_OF_MONTH; day++) {
+			freeDays |= random.nextInt(3) == 0 ? 1L << day : 0;
+			daysToWorkInTotal[random.nextInt(NUMBER_OF_WORKING_EMPLOYEES)]++;
+		}
+		for (int employee = 0; employee < NUMBER_OF_WORKING_EMPLOYEES; employee++) {
+			availableDaysOfEmployee[employee] = ((1L << LENGTH_OF_MONTH) - 1) & (random.nextLong() | random.nextLong());
+			maxLengthOfShift[employee] = 2 + random.nextInt(2);
+			wishedLengthOfShift[employee] = 2;
+			additionalFreeDays[employee] = random.nextInt(2);
+			daysToWorkAtFreeDay[employee] = daysToWorkInTotal[employee] / 3.0;
+			expectedDaysBetweenShifts[employee] = daysToWorkInTotal[employee] == 0 ? 0
+					: (double) LENGTH_OF_MONTH * wishedLengthOfShift[employee] / daysToWorkInTotal[employee];
+		}
+
+		fixedEmployeeOnDay[0] = 0;
+		availableDaysOfEmployee[0] = (availableDaysOfEmployee[0] | 1L) & ~2L;
+		daysToWorkInTotal[0] = Math.max(1, daysToWorkInTotal[0]);
+		return new ProblemInstance(LENGTH_OF_MONTH, freeDays, 1L, fixedEmployeeOnDay, availableDaysOfEmployee,
+				maxLengthOfShift, wishedLengthOfShift, additionalFreeDays, daysToWorkInTotal, daysToWorkAtFreeDay,
+				expectedDaysBetweenShifts);
+	}
+}